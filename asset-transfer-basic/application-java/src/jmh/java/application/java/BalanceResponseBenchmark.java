@@ -0,0 +1,87 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+// gradle jmh, or gradle jmh -Pbenchmarks=BalanceResponse
+
+package application.java;
+
+import application.java.dto.BalanceResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The JSON work of a /balance request: decoding the ReadAccount result and writing the response
+ * body, with the ObjectMapper configuration Spring MVC uses. The signature check and the peer
+ * round trip are left out, they cost the same either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BalanceResponseBenchmark {
+    private static final int DECIMALS = 9;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    private final PublicController controller = new PublicController();
+
+    private byte[] result;
+
+    /**
+     * Builds a ReadAccount result as the chaincode returns it, with an RSA-2048 sized public key.
+     */
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[294];
+        new Random(1).nextBytes(key);
+        result = ("{\"accountID\":\"account-000042\",\"balance\":1250000000,\"publicKey\":\""
+                + Base64.getEncoder().encodeToString(key) + "\"}").getBytes(UTF_8);
+        controller.objectMapper = objectMapper;
+    }
+
+    /**
+     * The controller before typed responses: org.json over a String copy of the result, and a
+     * HashMap response.
+     */
+    @Benchmark
+    public byte[] jsonObjectAndMap() throws IOException {
+        JSONObject obj = new JSONObject(new String(result));
+        Account account = new Account("account-000042", obj.getString("publicKey"), obj.getLong("balance"));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("code", Code.OK);
+        map.put("balance", BigDecimal.valueOf(account.getBalance(), DECIMALS));
+        map.put("id", 1);
+        return objectMapper.writeValueAsBytes(map);
+    }
+
+    /**
+     * The controller now: Jackson straight from the result bytes, and a BalanceResponse.
+     */
+    @Benchmark
+    public byte[] typed() throws IOException {
+        Account account = controller.parseAccount(result);
+        return objectMapper.writeValueAsBytes(new BalanceResponse(Code.OK, BigDecimal.valueOf(account.getBalance(), DECIMALS), 1));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+// Running the load test against an application started with gradle runApp:
+// gradle loadTest --args='--concurrency 50,200,1000,5000 --seconds 20'
+// or against the application started in the load test with a stubbed network, on platform and then virtual threads:
+// gradle loadTest --args='--stub-latency-ms 50'
+
+package application.java;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import application.java.components.VirtualThreads;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Keeps a fixed number of requests in flight against a running application for a while, for
+ * each of several concurrency levels, and prints the throughput and latency of each level.
+ *
+ * The default request is a /balance of an account that does not exist, which costs the
+ * application one ReadAccount evaluation on a peer and no signature check. In the URL, {n} is
+ * replaced with a request counter and {now} with the current time in milliseconds, so the requests
+ * are not throttled per account or turned away for their timestamp. Compare the results
+ * of an application started with and without --app.virtual-threads=true: on platform threads the
+ * throughput stops growing once the concurrency passes the Tomcat thread pool size.
+ *
+ * With --stub-latency-ms, no running application or network is needed: the application is started
+ * in this JVM with a {@link StubFabricComponent} whose evaluations block for that long, once for
+ * each of the --threads modes, platform and virtual by default, and the levels are run against
+ * each. This measures the request handling alone, so the difference between the modes shows
+ * without the peers' own limits getting in the way.
+ *
+ * Virtual threads need Java 21. On an older JVM the virtual mode is skipped, and the load test's
+ * own requests are sent from platform threads.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String[] levels = options.getOrDefault("concurrency", "50,200,1000,5000").split(",");
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("seconds", "20")));
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(clientThreads())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        String stubLatency = options.get("stub-latency-ms");
+        if (stubLatency == null) {
+            run(client, options.getOrDefault("url", balanceUrl(9997)), levels, duration);
+            return;
+        }
+        for (String threads : options.getOrDefault("threads", "platform,virtual").split(",")) {
+            boolean virtual = "virtual".equals(threads.trim());
+            if (virtual && !VirtualThreads.isAvailable()) {
+                System.out.println("virtual threads need Java 21, skipped on Java " + System.getProperty("java.specification.version"));
+                continue;
+            }
+            System.out.println(threads + " threads, evaluations take " + stubLatency + " ms");
+            try (ConfigurableApplicationContext application = startStubbed(stubLatency, virtual)) {
+                int port = Integer.parseInt(application.getEnvironment().getProperty("local.server.port"));
+                run(client, options.getOrDefault("url", balanceUrl(port)), levels, duration);
+            }
+        }
+    }
+
+    // a thread per request in flight, which at the higher levels only virtual threads keep cheap
+    private static ExecutorService clientThreads() {
+        return VirtualThreads.isAvailable() ? VirtualThreads.newPerTaskExecutor() : Executors.newCachedThreadPool();
+    }
+
+    private static String balanceUrl(int port) {
+        return "http://localhost:" + port + "/balance?accountId=load-test-{n}&id=1&timestamp={now}&signature=";
+    }
+
+    // starts the application on a free port, with the gateways replaced by a StubFabricComponent
+    private static ConfigurableApplicationContext startStubbed(String latencyMillis, boolean virtualThreads) {
+        SpringApplication application = new SpringApplication(App.class);
+        application.addInitializers(context -> context.addBeanFactoryPostProcessor(beanFactory ->
+                beanFactory.getBeanDefinition("fabricComponent").setBeanClassName(StubFabricComponent.class.getName())));
+        return application.run(
+                "--server.port=0",
+                "--app.virtual-threads=" + virtualThreads,
+                "--loadtest.stub-latency-ms=" + latencyMillis,
+                // the per-request log lines would cost more than the request itself
+                "--logging.level.application.java=warn");
+    }
+
+    private static void run(HttpClient client, String url, String[] levels, Duration duration) throws Exception {
+        System.out.println("GET " + url);
+        System.out.printf("%12s %10s %10s %10s %10s %8s%n", "concurrency", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        for (String level : levels) {
+            run(client, url, Integer.parseInt(level.trim()), duration);
+        }
+    }
+
+    private static final AtomicLong requests = new AtomicLong();
+
+    private static HttpRequest request(String url) {
+        URI uri = URI.create(url.replace("{n}", Long.toString(requests.incrementAndGet()))
+                .replace("{now}", Long.toString(System.currentTimeMillis())));
+        return HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(1)).GET().build();
+    }
+
+    private static void run(HttpClient client, String url, int concurrency, Duration duration) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<List<Long>>> workers = new ArrayList<>(concurrency);
+        int[] errors = new int[1];
+
+        ExecutorService executor = clientThreads();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request(url), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                synchronized (errors) {
+                                    errors[0]++;
+                                }
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            synchronized (errors) {
+                                errors[0]++;
+                            }
+                            continue;
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                    return latencies;
+                }));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> worker : workers) {
+            latencies.addAll(worker.get());
+        }
+        Collections.sort(latencies);
+        System.out.printf("%12d %10d %10.0f %10.1f %10.1f %8d%n", concurrency, latencies.size(),
+                latencies.size() / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99), errors[0]);
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size()))) / 1e6;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package application.java;
+
+import application.java.components.FabricComponent;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.Gateway;
+import org.hyperledger.fabric.gateway.Network;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Takes the place of the gateway pool when LoadTest starts the application itself. An evaluation
+ * blocks its thread for loadtest.stub-latency-ms, as a call to a peer does, and finds no account.
+ * There is no network to submit to or listen on, so contracts are unavailable, as they are while
+ * the peers cannot be reached.
+ */
+public class StubFabricComponent extends FabricComponent {
+    @Value("${loadtest.stub-latency-ms}")
+    long latencyMillis;
+
+    @Override
+    public void warmUp() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public byte[] evaluateTransaction(String channel, String chainCodeId, String transaction, String... args) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return new byte[0];
+    }
+
+    @Override
+    public Gateway getGateway() {
+        throw notConnected();
+    }
+
+    @Override
+    public Exception getConnectError() {
+        return notConnected();
+    }
+
+    @Override
+    public Network getNetwork(String channel) {
+        throw notConnected();
+    }
+
+    @Override
+    public Contract getContract(String channel, String chainCodeId, String name) {
+        throw notConnected();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return false;
+    }
+
+    @Override
+    public Map<String, Network> getNetworks() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Set<List<String>> getContractKeys() {
+        return Collections.emptySet();
+    }
+
+    private static IllegalStateException notConnected() {
+        return new IllegalStateException("The load test stubs out the gateways");
+    }
+}
@@ -1,11 +1,17 @@
 package application.java;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
+// also the JSON of the chaincode's ReadAccount result and CreateAccounts argument
 @Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class Account {
         private final String accountID;
         private final String publicKey;
-        private final double balance;
+        // balance in minor units, see the decimals property
+        private final long balance;
 }
-
@@ -5,5 +5,10 @@ public enum Code {
     ERR,
     INVALID_SIG,
     ACCOUNT_NOT_EXIST,
+    BUSY,
+    TX_NOT_EXIST,
+    THROTTLED,
+    REPLAYED,
+    EXPIRED,
     ;
 }
@@ -1,52 +1,107 @@
 package application.java;
 
+import application.java.components.AccountCache;
+import application.java.components.AccountRateLimiter;
+import application.java.components.AccountSequencer;
 import application.java.components.FabricComponent;
+import application.java.components.FabricMetrics;
+import application.java.components.PublicKeyCache;
+import application.java.components.ReplayGuard;
+import application.java.components.SendBatcher;
+import application.java.components.TransactionStatus;
+import application.java.components.TransactionSubmitter;
+import application.java.dto.BalanceResponse;
+import application.java.dto.CodeResponse;
 import application.java.dto.CreateAccountDto;
+import application.java.dto.CreateAccountsResponse;
 import application.java.dto.GetBalanceDto;
 import application.java.dto.SendDto;
-import lombok.SneakyThrows;
+import application.java.dto.SendResponse;
+import application.java.dto.TransactionStatusResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.hyperledger.fabric.gateway.Contract;
 import org.hyperledger.fabric.gateway.ContractException;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 public class PublicController {
-    private static final HashMap<String, Object> BAD_SIG = new HashMap<>(1);
-    private static final HashMap<String, Object> ACCOUNT_NOT_EXIST = new HashMap<>(1);
-
-    static {
-        BAD_SIG.put("code", Code.INVALID_SIG);
-        BAD_SIG.put("msg", "Signature is invalid");
-        ACCOUNT_NOT_EXIST.put("code", Code.ACCOUNT_NOT_EXIST);
-        ACCOUNT_NOT_EXIST.put("msg", "Account not exists on ledger");
-    }
-
     Logger log = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
     FabricComponent cache;
+    @Autowired
+    PublicKeyCache publicKeys;
+    @Autowired
+    AccountCache accounts;
+    @Autowired
+    AccountRateLimiter rateLimiter;
+    @Autowired
+    AccountSequencer sequencer;
+    @Autowired
+    ReplayGuard replayGuard;
+    @Autowired
+    TransactionSubmitter submitter;
+    @Autowired
+    SendBatcher batcher;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    FabricMetrics metrics;
+    @Autowired
+    MeterRegistry registry;
     @Value("${channel}")
     String channel;
     @Value("${chaincode.id}")
     String chaincodeId;
+    @Value("${decimals}")
+    int decimals;
+    @Value("${account.batch.size:1000}")
+    int accountBatchSize;
+    @Value("${send.batch.enabled:false}")
+    boolean batchSends;
+    // how long /send waits for its transfer to commit, or for the earlier transfers on its accounts
+    @Value("${send.timeout-seconds:300}")
+    long sendTimeoutSeconds;
+
+    private long toUnits(double amount){
+        return BigDecimal.valueOf(amount).movePointRight(decimals).longValueExact();
+    }
+
+    private BigDecimal fromUnits(long units){
+        return BigDecimal.valueOf(units, decimals);
+    }
+
+    // decodes a ReadAccount result straight from the bytes, without a String copy
+    Account parseAccount(byte[] result) throws IOException {
+        return objectMapper.readValue(result, Account.class);
+    }
+
+    // times the signature check of a request, as app.signature.verify
+    private boolean verify(String endpoint, Callable<Boolean> check) throws Exception {
+        return registry.timer("app.signature.verify", "endpoint", endpoint).recordCallable(check);
+    }
 
-    @SneakyThrows
-    private Account accountByAccountId(String accountId){
-        Contract contract = cache.getContract(channel, chaincodeId);
-        byte[] result = contract.evaluateTransaction("ReadAccount", accountId);
+    private Account accountByAccountId(String accountId) throws ContractException, IOException {
+        byte[] result = cache.evaluateTransaction(channel, chaincodeId, "ReadAccount", accountId);
         if (result != null && result.length > 0){
-            JSONObject obj = new JSONObject(new String(result));
-            String key = obj.getString("publicKey");
-            double balance = obj.getDouble("balance");
-            return new Account(accountId, key, balance);
+            return parseAccount(result);
         }else{
             return null;
         }
@@ -54,45 +109,41 @@ public class PublicController {
 
     @GetMapping("/balance")
     @ResponseBody
-    public Map<String, Object> getBalance(GetBalanceDto dto){
+    public Object getBalance(GetBalanceDto dto){
         log.info("params {}", dto);
 
         try {
             String accountId = dto.getAccountId();
             int id = dto.getId();
 
-            Account account = accountByAccountId(accountId);
-
-            if (account == null){
-                return ACCOUNT_NOT_EXIST;
+            // before any ledger read or signature check, the work a flood would cost
+            if (!rateLimiter.tryAcquire(accountId)){
+                return CodeResponse.THROTTLED;
             }
-
-            if (!dto.validate(account.getPublicKey())){
-                return BAD_SIG;
+            if (!replayGuard.inWindow(dto.getTimestamp())){
+                return CodeResponse.EXPIRED;
             }
 
+            boolean consistent = Boolean.TRUE.equals(dto.getConsistent());
+            Account account = accounts.get(accountId, consistent, () -> accountByAccountId(accountId));
 
-            Contract contract = cache.getContract(channel, chaincodeId);
-            log.info("ReadAccount {}", accountId);
-            byte[] result = contract.evaluateTransaction("ReadAccount", accountId);
-
-            String r = new String(result);
+            if (account == null){
+                return CodeResponse.ACCOUNT_NOT_EXIST;
+            }
 
-            log.info("result: {}", r);
-            JSONObject obj = new JSONObject(r);
-            double balance = obj.getDouble("balance");
+            PublicKey publicKey = publicKeys.get(accountId, account::getPublicKey);
+            if (!verify("/balance", () -> dto.validate(publicKey))){
+                return CodeResponse.BAD_SIG;
+            }
+            if (!replayGuard.firstUse("balance", accountId, id, dto.getTimestamp())){
+                return CodeResponse.REPLAYED;
+            }
 
-            Map<String, Object> map = new HashMap<>();
-            map.put("code", Code.OK);
-            map.put("balance", balance);
-            map.put("id", id);
-            return map;
-        } catch (ContractException e) {
+            // the balance was read together with the public key, in the same evaluation
+            return new BalanceResponse(Code.OK, fromUnits(account.getBalance()), id);
+        } catch (Exception e) {
             log.error("Error evaluating contract", e);
-            Map<String, Object> map = new HashMap<>();
-            map.put("code", Code.ERR);
-            map.put("msg", e.getMessage());
-            return map;
+            return CodeResponse.error(e.getMessage());
         }
     }
 
@@ -108,22 +159,76 @@ public class PublicController {
             log.info("params {}", dto);
 
 
-            byte[] result = contract.submitTransaction("CreateAccount", accountId, String.valueOf(balance), publicKey);
+            byte[] result = metrics.submit(contract.createTransaction("CreateAccount"), accountId, String.valueOf(toUnits(balance)), publicKey);
 
             if (result!=null && result.length>0){
                 log.info("create account returns {}", new String(result));
             }
 
-            Map<String, Object> map = new HashMap<>();
-            map.put("code", Code.OK);
-            return map;
+            return CodeResponse.OK;
+        } catch (Exception e) {
+            log.error("Error evaluating contract", e);
+            return CodeResponse.error(e.getMessage());
+        }
+    }
+
+    @PutMapping("/accounts")
+    @ResponseBody
+    public Object createAccounts(@RequestBody List<CreateAccountDto> dtos){
+        log.info("creating {} accounts", dtos.size());
+
+        int created = 0;
+        try {
+            Contract contract = cache.getContract(channel, chaincodeId);
+            // one transaction per chunk, keeping each proposal well below the message size limits
+            for (int start = 0; start < dtos.size(); start += accountBatchSize) {
+                List<CreateAccountDto> chunk = dtos.subList(start, Math.min(start + accountBatchSize, dtos.size()));
+                List<Account> accounts = new ArrayList<>(chunk.size());
+                for (CreateAccountDto dto : chunk) {
+                    accounts.add(new Account(dto.getAccountId(), dto.getPublicKey(), toUnits(dto.getBalance())));
+                }
+
+                metrics.submit(contract.createTransaction("CreateAccounts"), objectMapper.writeValueAsString(accounts));
+                created += chunk.size();
+            }
+
+            return new CreateAccountsResponse(Code.OK, created, null);
         } catch (Exception e) {
             log.error("Error evaluating contract", e);
-            Map<String, Object> map = new HashMap<>();
-            map.put("code", Code.ERR);
-            map.put("msg", e.getMessage());
-            return map;
+            return new CreateAccountsResponse(Code.ERR, created, e.getMessage());
+        }
+    }
+
+    // returns the error response if the sender is throttled, does not exist, did not sign the
+    // request or sent it before; /send and /send/async sign the same text, so share their nonces
+    private CodeResponse checkSender(String endpoint, SendDto dto) throws Exception {
+        String fromId = dto.getFromId();
+        if (!rateLimiter.tryAcquire(fromId)){
+            return CodeResponse.THROTTLED;
+        }
+        if (!replayGuard.inWindow(dto.getTimestamp())){
+            return CodeResponse.EXPIRED;
+        }
+        PublicKey publicKey = publicKeys.get(fromId, () -> {
+            Account account = accountByAccountId(fromId);
+            return account == null ? null : account.getPublicKey();
+        });
+        if (publicKey == null){
+            return CodeResponse.ACCOUNT_NOT_EXIST;
+        }
+        if (!verify(endpoint, () -> dto.validate(publicKey))){
+            return CodeResponse.BAD_SIG;
         }
+        if (!replayGuard.firstUse("send", fromId, dto.getId(), dto.getTimestamp())){
+            return CodeResponse.REPLAYED;
+        }
+        return null;
+    }
+
+    // nothing was submitted, so the client may retry the same request
+    private CodeResponse busy(SendDto dto){
+        replayGuard.forget("send", dto.getFromId(), dto.getId(), dto.getTimestamp());
+        return CodeResponse.BUSY;
     }
 
     @PostMapping("/send")
@@ -132,33 +237,90 @@ public class PublicController {
         log.info("params {}", dto);
 
         try {
-            String fromId = dto.getFromId();
-            Account account = accountByAccountId(fromId);
-            if (!dto.validate(account.getPublicKey())){
-                return BAD_SIG;
+            CodeResponse error = checkSender("/send", dto);
+            if (error != null){
+                return error;
             }
 
-            Contract contract = cache.getContract(channel, chaincodeId);
+            String fromId = dto.getFromId();
             String toId = dto.getToId();
             double amount = dto.getAmount();
             int id = dto.getId();
-            byte[] result = contract.submitTransaction("Send", fromId, toId, String.valueOf(amount));
-
             log.info("Sending {} from {} to {}", amount, fromId, toId);
-            if (result!=null && result.length>0){
-                log.info("returns {}", new String(result));
+            if (batchSends){
+                // waits for the SendBatch transaction carrying this transfer
+                batcher.send(fromId, toId, toUnits(amount)).get(sendTimeoutSeconds, TimeUnit.SECONDS);
+            }else{
+                // after the earlier transfers touching either account, so they do not fail each other's MVCC check
+                Contract contract = cache.getContract(channel, chaincodeId);
+                byte[] result = sequencer.call(Arrays.asList(fromId, toId),
+                        () -> metrics.submit(contract.createTransaction("Send"), fromId, toId, String.valueOf(toUnits(amount))),
+                        sendTimeoutSeconds, TimeUnit.SECONDS);
+                if (result!=null && result.length>0){
+                    log.info("returns {}", new String(result));
+                }
             }
 
-            Map<String, Object> map = new HashMap<>();
-            map.put("code", Code.OK);
-            map.put("id", id);
-            return map;
+            return new SendResponse(Code.OK, id, null);
+        } catch (RejectedExecutionException e) {
+            return busy(dto);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException){
+                // turned away by the batcher's sequencer, or the batcher is shutting down
+                return busy(dto);
+            }
+            if (e.getCause() instanceof IllegalArgumentException){
+                // rejected by the batcher before it was queued
+                replayGuard.forget("send", dto.getFromId(), dto.getId(), dto.getTimestamp());
+            }
+            log.error("Error evaluating contract", e.getCause());
+            return CodeResponse.error(e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            // the transfer may still commit, so its nonce is kept
+            log.warn("No result for transfer from {} within {} seconds", dto.getFromId(), sendTimeoutSeconds);
+            return CodeResponse.error("No result within " + sendTimeoutSeconds + " seconds, the transfer may still commit");
         } catch (Exception e) {
             log.error("Error evaluating contract", e);
-            Map<String, Object> map = new HashMap<>();
-            map.put("code", Code.ERR);
-            map.put("msg", e.getMessage());
-            return map;
+            return CodeResponse.error(e.getMessage());
         }
     }
+
+    /**
+     * Like /send, but returns once the transaction is queued. Poll /transaction with the returned
+     * txId for its commit status.
+     */
+    @PostMapping("/send/async")
+    @ResponseBody
+    public Object sendAsync(SendDto dto){
+        log.info("params {}", dto);
+
+        try {
+            CodeResponse error = checkSender("/send/async", dto);
+            if (error != null){
+                return error;
+            }
+
+            Contract contract = cache.getContract(channel, chaincodeId);
+            String txId = submitter.submit(cache.getNetwork(channel), contract, Arrays.asList(dto.getFromId(), dto.getToId()), "Send",
+                    dto.getFromId(), dto.getToId(), String.valueOf(toUnits(dto.getAmount())));
+
+            return new SendResponse(Code.OK, dto.getId(), txId);
+        } catch (RejectedExecutionException e) {
+            return busy(dto);
+        } catch (Exception e) {
+            log.error("Error evaluating contract", e);
+            return CodeResponse.error(e.getMessage());
+        }
+    }
+
+    @GetMapping("/transaction")
+    @ResponseBody
+    public Object transactionStatus(@RequestParam String txId){
+        TransactionStatus status = submitter.getStatus(txId);
+        if (status == null){
+            return CodeResponse.TX_NOT_EXIST;
+        }
+
+        return new TransactionStatusResponse(Code.OK, txId, status.getState(), status.getMessage());
+    }
 }
@@ -0,0 +1,43 @@
+package application.java;
+
+import application.java.dto.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Counts the responses of the REST endpoints by endpoint and {@link Code}, as app.responses. The
+ * endpoints answer errors with HTTP 200, so http.server.requests does not tell them apart.
+ */
+@ControllerAdvice
+public class ResponseMetrics implements ResponseBodyAdvice<Object> {
+    @Autowired
+    MeterRegistry registry;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof Response && request instanceof ServletServerHttpRequest) {
+            Object endpoint = ((ServletServerHttpRequest) request).getServletRequest()
+                    .getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            registry.counter("app.responses",
+                    "endpoint", endpoint != null ? endpoint.toString() : "UNKNOWN",
+                    "code", ((Response) body).getCode().name()).increment();
+        }
+        return body;
+    }
+}
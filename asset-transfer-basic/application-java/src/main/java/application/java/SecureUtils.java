@@ -2,6 +2,7 @@ package application.java;
 
 
 import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.spec.X509EncodedKeySpec;
@@ -13,6 +14,15 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class SecureUtils {
     final static Logger log = Logger.getLogger(SecureUtils.class.getName());
 
+    // Signature objects are not thread safe but can be reused, initVerify resets them
+    private static final ThreadLocal<Signature> SHA256_WITH_RSA = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance("SHA256withRSA");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     public static PublicKey publicKeyFromString(String base64PublicKey) {
         byte[] publicKeyDER = Base64.getDecoder().decode(base64PublicKey);
         try{
@@ -37,7 +47,7 @@ public class SecureUtils {
 
     public static boolean verify(String plainText, String signature, PublicKey publicKey) {
         try{
-            Signature publicSignature = Signature.getInstance("SHA256withRSA");
+            Signature publicSignature = SHA256_WITH_RSA.get();
             publicSignature.initVerify(publicKey);
             publicSignature.update(plainText.getBytes(UTF_8));
 
@@ -1,5 +1,9 @@
 package application.java;
 
+import java.security.PublicKey;
+
 public interface SignedData {
     boolean validate(String pubkey);
+
+    boolean validate(PublicKey publicKey);
 }
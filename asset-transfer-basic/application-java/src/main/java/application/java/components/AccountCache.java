@@ -0,0 +1,130 @@
+package application.java.components;
+
+import application.java.Account;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.hyperledger.fabric.gateway.ContractEvent;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Accounts read from the ledger, kept up to date from the balances the chaincode reports in its
+ * BalancesChanged events, and dropped on BalancesInvalidated.
+ *
+ * Off unless balance.cache.enabled is set, since a cached balance can be behind the ledger:
+ * <ul>
+ * <li>events arrive once the transaction is committed on the peer the listener is connected to,
+ * so a balance lags by that delay</li>
+ * <li>a load served by a peer that is behind the listener's peer is cached as it is, since no
+ * event arrives during the load to show it is old</li>
+ * <li>an event that is lost leaves the balance as it was</li>
+ * </ul>
+ * Entries are read again from the ledger at the latest balance.cache.max-age-ms after they were
+ * loaded or updated, which bounds how far behind a balance can be. A load that overlaps an event is
+ * returned but not cached, since it may have read the balance from before the event. Nothing is
+ * cached while the listener is not registered. A /balance request with consistent set bypasses the
+ * cache.
+ */
+@Component
+public class AccountCache {
+    private static final String BALANCES_CHANGED_EVENT = "BalancesChanged";
+    private static final String BALANCES_INVALIDATED_EVENT = "BalancesInvalidated";
+
+    Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    FabricComponent fabric;
+    @Value("${channel}")
+    String channel;
+    @Value("${chaincode.id}")
+    String chaincodeId;
+    @Value("${balance.cache.enabled:false}")
+    boolean enabled;
+    @Value("${balance.cache.size:10000}")
+    long maximumSize;
+    @Value("${balance.cache.max-age-ms:5000}")
+    long maxAgeMillis;
+
+    private Cache<String, Account> accounts;
+    private ContractListenerRegistration listener;
+
+    // incremented on every event, a load that overlaps an event may have read an older balance
+    private final AtomicLong events = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        accounts = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maxAgeMillis, TimeUnit.MILLISECONDS)
+                .build();
+        Pattern eventNames = Pattern.compile(Pattern.quote(BALANCES_CHANGED_EVENT) + "|" + Pattern.quote(BALANCES_INVALIDATED_EVENT));
+        listener = new ContractListenerRegistration(fabric, channel, chaincodeId, eventNames,
+                this::balancesChanged, accounts::invalidateAll);
+    }
+
+    /**
+     * Returns an account, from the cache unless bypass is set.
+     *
+     * @param bypass read from the ledger, for a read that must see every transaction committed so far
+     * @param loader reads the account from the ledger, returns null if it does not exist
+     * @return the account, or null if it does not exist
+     */
+    public Account get(String accountId, boolean bypass, Callable<Account> loader) throws Exception {
+        if (!enabled || bypass || !listener.ensureRegistered()) {
+            return loader.call();
+        }
+
+        Account account = accounts.getIfPresent(accountId);
+        if (account != null) {
+            return account;
+        }
+
+        long before = events.get();
+        account = loader.call();
+        if (account != null) {
+            synchronized (this) {
+                if (events.get() == before) {
+                    accounts.put(accountId, account);
+                }
+            }
+        }
+        return account;
+    }
+
+    private synchronized void balancesChanged(ContractEvent event) {
+        events.incrementAndGet();
+        event.getPayload().ifPresent(payload -> {
+            String json = new String(payload, UTF_8);
+            if (BALANCES_INVALIDATED_EVENT.equals(event.getName())) {
+                JSONArray accountIds = new JSONArray(json);
+                for (int i = 0; i < accountIds.length(); i++) {
+                    accounts.invalidate(accountIds.getString(i));
+                }
+                return;
+            }
+
+            // account ID -> new balance, only accounts already cached are updated
+            JSONObject balances = new JSONObject(json);
+            for (String accountId : balances.keySet()) {
+                Account cached = accounts.getIfPresent(accountId);
+                if (cached != null) {
+                    accounts.put(accountId, new Account(accountId, cached.getPublicKey(), balances.getLong(accountId)));
+                }
+            }
+        });
+        log.debug("Applied {} event", event.getName());
+    }
+}
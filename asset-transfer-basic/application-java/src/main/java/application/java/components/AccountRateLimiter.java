@@ -0,0 +1,78 @@
+package application.java.components;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the requests per account to ratelimit.per-second on average, with bursts of up to
+ * ratelimit.burst, so one client hammering an account cannot take the peers' capacity from
+ * everyone else.
+ *
+ * Each account has a token bucket kept as a single timestamp, the time at which the bucket is full
+ * again, which requests advance with a compare-and-set. A bucket that has not been used since it
+ * filled up is the same as a new one, so buckets expire then, and at most ratelimit.accounts are
+ * kept; evicting a busy account's bucket early only gives it a fresh burst.
+ */
+@Component
+public class AccountRateLimiter {
+    @Value("${ratelimit.enabled:true}")
+    boolean enabled;
+    @Value("${ratelimit.per-second:100}")
+    double perSecond;
+    @Value("${ratelimit.burst:200}")
+    int burst;
+    @Value("${ratelimit.accounts:100000}")
+    long maximumAccounts;
+
+    // nanoseconds per token
+    private long interval;
+    private long capacity;
+    private Cache<String, AtomicLong> buckets;
+
+    @PostConstruct
+    public void init() {
+        interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        capacity = interval * burst;
+        buckets = CacheBuilder.newBuilder()
+                .maximumSize(maximumAccounts)
+                .expireAfterAccess(capacity, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * Takes a token from the account's bucket.
+     *
+     * @return false if the bucket is empty and the request should be turned away
+     */
+    public boolean tryAcquire(String accountId) {
+        if (!enabled || accountId == null) {
+            return true;
+        }
+
+        AtomicLong fullAt;
+        try {
+            fullAt = buckets.get(accountId, () -> new AtomicLong(System.nanoTime()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > capacity) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package application.java.components;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the submissions that touch the same account one after the other, in the order they were
+ * queued. Two transactions writing the same account key that are ordered into blocks at the same
+ * time read the same version of it, and all but the first fail MVCC validation; waiting for the
+ * first to commit lets the second read what the first wrote.
+ *
+ * Accounts are hashed onto send.sequence.stripes stripes, each remembering the last task queued on
+ * it. A task starts once the previous task of each of its stripes has finished, whether it
+ * succeeded or not. Accounts sharing a stripe are ordered too, which only costs concurrency.
+ *
+ * At most send.sequence.depth tasks are queued or running on a stripe, and at most
+ * send.sequence.queue callers wait for their turn; a task beyond either is rejected with
+ * RejectedExecutionException.
+ */
+@Component
+public class AccountSequencer {
+    @Value("${send.sequence.enabled:true}")
+    boolean enabled;
+    @Value("${send.sequence.stripes:65536}")
+    int stripes;
+    @Value("${send.sequence.depth:16}")
+    int depth;
+    @Value("${send.sequence.queue:1000}")
+    int queueSize;
+
+    // completes when the last task queued on the stripe has finished, never exceptionally
+    private CompletableFuture<?>[] tails;
+    // tasks queued or running on the stripe
+    private int[] depths;
+    // callers waiting for their turn
+    private Semaphore queued;
+
+    @PostConstruct
+    public void init() {
+        tails = new CompletableFuture<?>[stripes];
+        for (int i = 0; i < stripes; i++) {
+            tails[i] = CompletableFuture.completedFuture(null);
+        }
+        depths = new int[stripes];
+        queued = new Semaphore(queueSize);
+    }
+
+    /**
+     * Runs a task on the calling thread after the earlier tasks touching any of its accounts. If
+     * there are none, or sequencing is off, it runs straight away.
+     *
+     * @param timeout how long to wait for the earlier tasks
+     * @return what the task returned
+     * @throws RejectedExecutionException if the task would have to wait while send.sequence.queue
+     *         callers are already waiting, one of its stripes has send.sequence.depth tasks, or the
+     *         earlier tasks did not finish in time. The task has not run.
+     * @throws Exception what the task threw
+     */
+    public <T> T call(Collection<String> accountIds, Callable<T> task, long timeout, TimeUnit unit) throws Exception {
+        CompletableFuture<Void> turn = new CompletableFuture<>();
+        boolean slot = queued.tryAcquire();
+        CompletableFuture<?>[] before = enqueue(accountIds, turn, slot);
+        if (before == null) {
+            if (slot) {
+                queued.release();
+            }
+            throw new RejectedExecutionException("Too many transfers waiting for their turn");
+        }
+        try {
+            if (!isDone(before)) {
+                CompletableFuture.allOf(before).get(timeout, unit);
+            }
+        } catch (TimeoutException | InterruptedException e) {
+            // the next tasks on the stripes still wait for the earlier ones
+            CompletableFuture.allOf(before).whenComplete((value, error) -> turn.complete(null));
+            if (e instanceof InterruptedException) {
+                throw e;
+            }
+            throw new RejectedExecutionException("The earlier transfers on the accounts took too long");
+        } finally {
+            if (slot) {
+                queued.release();
+            }
+        }
+        try {
+            return task.call();
+        } finally {
+            turn.complete(null);
+        }
+    }
+
+    /**
+     * Runs a task on the given executor after the earlier tasks touching any of its accounts.
+     *
+     * @return completes with the task, or exceptionally if it failed, the executor rejected it or
+     *         one of its stripes has send.sequence.depth tasks
+     */
+    public <T> CompletableFuture<T> submit(Collection<String> accountIds, Callable<T> task, Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<?>[] before = enqueue(accountIds, result, true);
+        if (before == null) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many transfers waiting for their turn"));
+        }
+        runAfter(before, () -> run(task, result), result, executor);
+        return result;
+    }
+
+    /**
+     * Runs a task on the given executor after the earlier tasks touching any of its accounts, for a
+     * task that returns before its work is done. The thread is free once the task has returned, the
+     * next tasks on its accounts wait for the future it returned.
+     *
+     * @return completes with the future returned by the task, or exceptionally if the task failed, the
+     *         executor rejected it or one of its stripes has send.sequence.depth tasks
+     */
+    public <T> CompletableFuture<T> submitAsync(Collection<String> accountIds, Callable<CompletableFuture<T>> task,
+                                                Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<?>[] before = enqueue(accountIds, result, true);
+        if (before == null) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many transfers waiting for their turn"));
+        }
+        runAfter(before, () -> {
+            try {
+                task.call().whenComplete((value, error) -> {
+                    if (error == null) {
+                        result.complete(value);
+                    } else {
+                        result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                    }
+                });
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, result, executor);
+        return result;
+    }
+
+    /**
+     * Makes the result the last task of the stripes of the accounts.
+     *
+     * @param mayWait whether to take the stripes if an earlier task on them has not finished
+     * @return the tasks the result has to wait for, or null if it would have to wait and may not, or
+     *         one of the stripes is full
+     */
+    private CompletableFuture<?>[] enqueue(Collection<String> accountIds, CompletableFuture<?> result, boolean mayWait) {
+        if (!enabled) {
+            return new CompletableFuture<?>[0];
+        }
+        int[] lanes = accountIds.stream().mapToInt(id -> Math.floorMod(id.hashCode(), stripes)).distinct().toArray();
+        CompletableFuture<?>[] before = new CompletableFuture<?>[lanes.length];
+        // taking the place of the last task on all stripes at once keeps the order the same on each
+        synchronized (tails) {
+            for (int i = 0; i < lanes.length; i++) {
+                if (depths[lanes[i]] >= depth) {
+                    return null;
+                }
+                before[i] = tails[lanes[i]];
+            }
+            if (!mayWait && !isDone(before)) {
+                return null;
+            }
+            CompletableFuture<Void> done = result.handle((value, error) -> {
+                synchronized (tails) {
+                    for (int lane : lanes) {
+                        depths[lane]--;
+                    }
+                }
+                return null;
+            });
+            for (int lane : lanes) {
+                tails[lane] = done;
+                depths[lane]++;
+            }
+        }
+        return before;
+    }
+
+    private static boolean isDone(CompletableFuture<?>[] futures) {
+        for (CompletableFuture<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void runAfter(CompletableFuture<?>[] before, Runnable task, CompletableFuture<?> result,
+                                 Executor executor) {
+        CompletableFuture.allOf(before)
+                .thenRunAsync(task, executor)
+                .exceptionally(e -> {
+                    // the executor did not take the task
+                    result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                    return null;
+                });
+    }
+
+    private static <T> void run(Callable<T> task, CompletableFuture<T> result) {
+        try {
+            result.complete(task.call());
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package application.java.components;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractEvent;
+
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a contract event listener registered across gateway reconnections. A new connection
+ * yields a new Contract with no listeners, so the listener is registered again, after onRegister
+ * has dropped anything that relied on the events missed in between.
+ */
+class ContractListenerRegistration {
+    private final FabricComponent fabric;
+    private final String channel;
+    private final String chaincodeId;
+    private final Pattern eventNames;
+    private final Consumer<ContractEvent> listener;
+    private final Runnable onRegister;
+
+    private volatile Contract listening;
+
+    ContractListenerRegistration(FabricComponent fabric, String channel, String chaincodeId, Pattern eventNames,
+                                 Consumer<ContractEvent> listener, Runnable onRegister) {
+        this.fabric = fabric;
+        this.channel = channel;
+        this.chaincodeId = chaincodeId;
+        this.eventNames = eventNames;
+        this.listener = listener;
+        this.onRegister = onRegister;
+    }
+
+    /**
+     * Registers the listener on the current contract if it is not yet.
+     *
+     * @return false if the gateway is not connected, in which case no events are received
+     */
+    boolean ensureRegistered() {
+        Contract contract;
+        try {
+            contract = fabric.getContract(channel, chaincodeId);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (contract != listening) {
+            synchronized (this) {
+                if (contract != listening) {
+                    onRegister.run();
+                    contract.addContractListener(listener, eventNames);
+                    listening = contract;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -1,57 +1,222 @@
 package application.java.components;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.hyperledger.fabric.gateway.*;
+import org.hyperledger.fabric.sdk.ProposalResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Objects;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A pool of gateways, one per identity@connection-profile in gateway.members. Evaluations are
+ * spread over the pool, by round robin or to the gateway with the fewest evaluations in progress,
+ * and a gateway whose peers cannot be reached is left out for gateway.eject-ms. Within a gateway
+ * the query handler picks the peer, see gateway.query-handler.
+ *
+ * Submitted transactions and event listeners use the first gateway. The evaluations in progress on
+ * each gateway are published as the fabric.gateway.outstanding gauge.
+ */
 @Component
 public class FabricComponent {
     Logger log = LoggerFactory.getLogger(this.getClass());
 
-    private Gateway gateway;
+    @Autowired
+    FabricMetrics metrics;
+    @Autowired
+    MeterRegistry registry;
+    @Value("${channel}")
+    String channel;
+    @Value("${chaincode.id}")
+    String chaincodeId;
+    @Value("${gateway.members:aUser@../../test-network/organizations/peerOrganizations/org1.example.com/connection-org1.yaml}")
+    String[] memberSpecs;
+    // round-robin or least-outstanding
+    @Value("${gateway.routing:least-outstanding}")
+    String routing;
+    @Value("${gateway.eject-ms:30000}")
+    long ejectMillis;
+    @Value("${gateway.query-handler:MSPID_SCOPE_ROUND_ROBIN}")
+    DefaultQueryHandlers queryHandler;
 
-    private Gateway connect() throws Exception{
-        // Load a file system based wallet for managing identities.
-        Path walletPath = Paths.get("wallet");
-        Wallet wallet = Wallets.newFileSystemWallet(walletPath);
-        // load a CCP
-        Path networkConfigPath = Paths.get("..", "..", "test-network", "organizations", "peerOrganizations", "org1.example.com", "connection-org1.yaml");
+    private List<PooledGateway> members;
+    private boolean leastOutstanding;
+    private final AtomicInteger next = new AtomicInteger();
 
-        Gateway.Builder builder = Gateway.createBuilder();
-        builder.identity(wallet, "aUser").networkConfig(networkConfigPath).discovery(true);
-        return builder.connect();
+    /**
+     * Connects the gateways and looks up the configured contract, so the first request does not
+     * wait for the connections and for service discovery. A failure is logged and reported by the
+     * health indicator, and the connection is retried on the next request.
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (!"least-outstanding".equals(routing) && !"round-robin".equals(routing)) {
+            throw new IllegalArgumentException("gateway.routing must be round-robin or least-outstanding, got " + routing);
+        }
+        leastOutstanding = "least-outstanding".equals(routing);
+
+        List<PooledGateway> pool = new ArrayList<>(memberSpecs.length);
+        for (String spec : memberSpecs) {
+            PooledGateway member = new PooledGateway(spec, queryHandler, metrics.timing(DefaultCommitHandlers.MSPID_SCOPE_ALLFORTX));
+            Gauge.builder("fabric.gateway.outstanding", member.getOutstanding(), AtomicInteger::get)
+                    .tag("gateway", member.toString())
+                    .register(registry);
+            pool.add(member);
+        }
+        members = Collections.unmodifiableList(pool);
+
+        for (PooledGateway member : members) {
+            try {
+                member.getContract(channel, chaincodeId, "");
+                log.info("Connected to {} on {} as {}", chaincodeId, channel, member);
+            } catch (Exception e) {
+                log.error("Error connecting to gateway " + member + "!", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        members.forEach(PooledGateway::close);
+    }
+
+    private PooledGateway primary() {
+        return members.get(0);
     }
 
     public Gateway getGateway(){
-        if (Objects.isNull(gateway)){
+        return primary().getGateway();
+    }
+
+    /**
+     * Returns the error of the last failed connection attempt, or null if the gateway is connected.
+     */
+    public Exception getConnectError() {
+        return primary().getConnectError();
+    }
+
+    public Network getNetwork(String channel) {
+        return primary().getNetwork(channel);
+    }
+
+    public Contract getContract(String channel, String chainCodeId) {
+        return getContract(channel, chainCodeId, "");
+    }
+
+    public Contract getContract(String channel, String chainCodeId, String name) {
+        return primary().getContract(channel, chainCodeId, name);
+    }
+
+    /**
+     * Evaluates a transaction on a gateway of the pool. If the gateway cannot reach its peers, it is
+     * ejected and the evaluation is tried on the next one.
+     */
+    public byte[] evaluateTransaction(String channel, String chainCodeId, String transaction, String... args)
+            throws ContractException {
+        Set<PooledGateway> tried = new HashSet<>();
+        Exception failure = null;
+        PooledGateway member;
+        while ((member = route(tried)) != null) {
+            tried.add(member);
+            member.getOutstanding().incrementAndGet();
+            long start = metrics.evaluating();
+            boolean success = false;
             try {
-                Gateway gt = connect();
-                synchronized (this){
-                    if (Objects.isNull(gateway)){
-                        gateway = gt;
-                    }else{
-                        gt.close();
-                    }
+                byte[] result = member.getContract(channel, chainCodeId, "").evaluateTransaction(transaction, args);
+                success = true;
+                return result;
+            } catch (ContractException e) {
+                if (!isPeerFailure(e)) {
+                    throw e;
                 }
-            } catch (Exception e) {
-                log.error("Error connnecting to gateway!", e);
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                member.getOutstanding().decrementAndGet();
+                metrics.evaluated(transaction, start, success);
             }
+            log.warn("Ejecting gateway {} for {} ms: {}", member, ejectMillis, failure.getMessage());
+            member.eject(TimeUnit.MILLISECONDS.toNanos(ejectMillis));
+        }
+
+        if (failure instanceof ContractException) {
+            throw (ContractException) failure;
         }
-        return gateway;
+        throw (RuntimeException) failure;
     }
 
-    public Contract getContract(String channel, String chainCodeId) {
-        log.info("Getting contract for {} {}", channel, chainCodeId);
-        Gateway gateway = getGateway();
-        Objects.requireNonNull(gateway, "Gateway not ready!");
+    // a chaincode error carries the response of the peer that ran it, an unreachable peer has none
+    private static boolean isPeerFailure(ContractException e) {
+        Collection<ProposalResponse> responses = e.getProposalResponses();
+        return responses == null || responses.stream().allMatch(response -> response.getProposalResponse() == null);
+    }
+
+    /**
+     * Picks the gateway for the next evaluation among those not tried yet, preferring gateways that
+     * are not ejected. Returns null when every gateway was tried.
+     */
+    private PooledGateway route(Set<PooledGateway> tried) {
+        int size = members.size();
+        // rotating the start spreads ties in least-outstanding mode as well
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        PooledGateway best = null;
+        PooledGateway ejected = null;
+        for (int i = 0; i < size; i++) {
+            PooledGateway member = members.get((start + i) % size);
+            if (tried.contains(member)) {
+                continue;
+            }
+            if (member.isEjected()) {
+                if (ejected == null) {
+                    ejected = member;
+                }
+                continue;
+            }
+            if (!leastOutstanding) {
+                return member;
+            }
+            if (best == null || member.getOutstanding().get() < best.getOutstanding().get()) {
+                best = member;
+            }
+        }
+        // with every remaining gateway ejected, trying one beats failing outright
+        return best != null ? best : ejected;
+    }
 
-        Network network = gateway.getNetwork(channel);
-        return network.getContract(chainCodeId);
+    public boolean isConnected() {
+        return primary().isConnected();
+    }
+
+    /**
+     * Networks of the first gateway looked up so far, by channel.
+     */
+    public Map<String, Network> getNetworks() {
+        return primary().getNetworks();
+    }
+
+    /**
+     * (channel, chaincode, contract name) of the contracts of the first gateway looked up so far.
+     */
+    public Set<List<String>> getContractKeys() {
+        return primary().getContractKeys();
+    }
 
+    List<PooledGateway> getMembers() {
+        return members;
     }
 }
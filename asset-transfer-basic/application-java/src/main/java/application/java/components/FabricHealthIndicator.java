@@ -0,0 +1,56 @@
+package application.java.components;
+
+import org.hyperledger.fabric.gateway.Network;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports on /actuator/health whether the gateway is connected and the cached channels are usable,
+ * and the state of each gateway of the pool.
+ */
+@Component
+public class FabricHealthIndicator extends AbstractHealthIndicator {
+    @Autowired
+    FabricComponent fabric;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        Map<String, String> gateways = new LinkedHashMap<>();
+        for (PooledGateway member : fabric.getMembers()) {
+            String state = !member.isConnected() ? "DISCONNECTED" : member.isEjected() ? "EJECTED" : "UP";
+            gateways.put(member.toString(), state + ", " + member.getOutstanding().get() + " outstanding");
+        }
+        builder.withDetail("gateways", gateways);
+
+        if (!fabric.isConnected()) {
+            Exception error = fabric.getConnectError();
+            if (error != null) {
+                builder.down(error);
+            } else {
+                builder.down();
+            }
+            return;
+        }
+
+        List<String> shutdown = new ArrayList<>();
+        for (Map.Entry<String, Network> network : fabric.getNetworks().entrySet()) {
+            if (network.getValue().getChannel().isShutdown()) {
+                shutdown.add(network.getKey());
+            }
+        }
+        if (shutdown.isEmpty()) {
+            builder.up();
+        } else {
+            builder.down().withDetail("shutdownChannels", shutdown);
+        }
+        builder.withDetail("channels", fabric.getNetworks().keySet())
+                .withDetail("contracts", fabric.getContractKeys());
+    }
+}
@@ -0,0 +1,151 @@
+package application.java.components;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.gateway.Transaction;
+import org.hyperledger.fabric.gateway.spi.CommitHandler;
+import org.hyperledger.fabric.gateway.spi.CommitHandlerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timers for the Fabric calls, by chaincode function:
+ * <ul>
+ * <li>fabric.evaluate: an evaluation, including the peer round trip</li>
+ * <li>fabric.submit: a submission from start to commit</li>
+ * <li>fabric.endorse: the endorsement part of a submission</li>
+ * <li>fabric.commit: the rest, ordering and waiting for the commit events</li>
+ * </ul>
+ * and the fabric.in-flight gauge of evaluations and submissions in progress. Histograms and
+ * percentiles are configured with the management.metrics.distribution properties.
+ *
+ * Endorsement and commit are told apart by the commit handler, which the gateway creates once the
+ * endorsements are in, so only submissions made through {@link #submit} are split. For a
+ * submission with the NONE commit handler, as made by TransactionSubmitter, fabric.commit only
+ * covers sending the transaction to the orderer.
+ */
+@Component
+public class FabricMetrics {
+    @Autowired
+    MeterRegistry registry;
+
+    private final AtomicInteger evaluating = new AtomicInteger();
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    // the submission in progress on this thread, read when the gateway asks for a commit handler
+    private final ThreadLocal<Submission> submission = new ThreadLocal<>();
+
+    private static class Submission {
+        final String function;
+        final long start;
+
+        Submission(String function, long start) {
+            this.function = function;
+            this.start = start;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        registry.gauge("fabric.in-flight", Tags.of("call", "evaluate"), evaluating);
+        registry.gauge("fabric.in-flight", Tags.of("call", "submit"), submitting);
+    }
+
+    private Timer timer(String name, String function, String outcome) {
+        return Timer.builder(name)
+                .tag("function", function)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Counts an evaluation in flight until {@link #evaluated} is called with the returned start time.
+     */
+    long evaluating() {
+        evaluating.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    void evaluated(String function, long start, boolean success) {
+        evaluating.decrementAndGet();
+        timer("fabric.evaluate", function, success ? "success" : "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Submits a transaction, timing its endorsement and commit.
+     */
+    public byte[] submit(Transaction transaction, String... args)
+            throws ContractException, TimeoutException, InterruptedException {
+        String function = transaction.getName();
+        long start = System.nanoTime();
+        submitting.incrementAndGet();
+        submission.set(new Submission(function, start));
+        boolean success = false;
+        try {
+            byte[] result = transaction.submit(args);
+            success = true;
+            return result;
+        } finally {
+            submission.remove();
+            submitting.decrementAndGet();
+            timer("fabric.submit", function, success ? "success" : "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Wraps the gateway's commit handlers to time the endorsement and the commit of submissions.
+     */
+    CommitHandlerFactory timing(CommitHandlerFactory commitHandlers) {
+        return (transactionId, network) -> {
+            CommitHandler handler = commitHandlers.create(transactionId, network);
+            Submission current = submission.get();
+            if (current == null) {
+                return handler;
+            }
+            long endorsed = System.nanoTime();
+            timer("fabric.endorse", current.function, "success").record(endorsed - current.start, TimeUnit.NANOSECONDS);
+            return new TimedCommitHandler(handler, current.function, endorsed);
+        };
+    }
+
+    private class TimedCommitHandler implements CommitHandler {
+        private final CommitHandler handler;
+        private final String function;
+        private final long start;
+
+        TimedCommitHandler(CommitHandler handler, String function, long start) {
+            this.handler = handler;
+            this.function = function;
+            this.start = start;
+        }
+
+        @Override
+        public void startListening() {
+            handler.startListening();
+        }
+
+        @Override
+        public void waitForEvents(long timeout, TimeUnit timeUnit)
+                throws ContractException, TimeoutException, InterruptedException {
+            boolean success = false;
+            try {
+                handler.waitForEvents(timeout, timeUnit);
+                success = true;
+            } finally {
+                timer("fabric.commit", function, success ? "success" : "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void cancelListening() {
+            handler.cancelListening();
+        }
+    }
+}
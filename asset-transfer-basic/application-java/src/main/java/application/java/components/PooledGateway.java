@@ -0,0 +1,155 @@
+package application.java.components;
+
+import org.hyperledger.fabric.gateway.*;
+import org.hyperledger.fabric.gateway.spi.CommitHandlerFactory;
+import org.hyperledger.fabric.gateway.spi.QueryHandlerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One gateway of the pool: a wallet identity and the connection profile it connects with. Each
+ * gateway has its own connections and its own discovery view of the network. The connection is
+ * made on first use and again after close.
+ */
+class PooledGateway {
+    Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final String identity;
+    private final Path networkConfig;
+    private final QueryHandlerFactory queryHandler;
+    private final CommitHandlerFactory commitHandler;
+
+    private volatile Gateway gateway;
+    private volatile Exception connectError;
+
+    // Network and Contract objects are thread safe, so one of each serves every request
+    private final Map<String, Network> networks = new ConcurrentHashMap<>();
+    private final Map<List<String>, Contract> contracts = new ConcurrentHashMap<>();
+
+    // evaluations in progress, for least-outstanding routing
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // System.nanoTime() until which no evaluations are routed here
+    private volatile long ejectedUntil;
+    private volatile boolean ejected;
+
+    /**
+     * @param spec identity@connection-profile, the identity is read from the wallet directory
+     */
+    PooledGateway(String spec, QueryHandlerFactory queryHandler, CommitHandlerFactory commitHandler) {
+        int at = spec.indexOf('@');
+        if (at <= 0 || at == spec.length() - 1) {
+            throw new IllegalArgumentException("Expected identity@connection-profile, got " + spec);
+        }
+        this.identity = spec.substring(0, at).trim();
+        this.networkConfig = Paths.get(spec.substring(at + 1).trim());
+        this.queryHandler = queryHandler;
+        this.commitHandler = commitHandler;
+    }
+
+    private Gateway connect() throws Exception {
+        // Load a file system based wallet for managing identities.
+        Wallet wallet = Wallets.newFileSystemWallet(Paths.get("wallet"));
+
+        Gateway.Builder builder = Gateway.createBuilder();
+        builder.identity(wallet, identity).networkConfig(networkConfig).discovery(true)
+                .queryHandler(queryHandler).commitHandler(commitHandler);
+        return builder.connect();
+    }
+
+    synchronized void close() {
+        networks.clear();
+        contracts.clear();
+        if (gateway != null) {
+            gateway.close();
+            gateway = null;
+        }
+    }
+
+    Gateway getGateway() {
+        Gateway gt = gateway;
+        return gt != null ? gt : reconnect();
+    }
+
+    private synchronized Gateway reconnect() {
+        if (gateway == null) {
+            try {
+                gateway = connect();
+                connectError = null;
+            } catch (Exception e) {
+                connectError = e;
+                throw new IllegalStateException("Gateway not ready!", e);
+            }
+        }
+        return gateway;
+    }
+
+    Network getNetwork(String channel) {
+        Network network = networks.get(channel);
+        if (network == null) {
+            network = networks.computeIfAbsent(channel, getGateway()::getNetwork);
+        }
+        return network;
+    }
+
+    Contract getContract(String channel, String chainCodeId, String name) {
+        List<String> key = Arrays.asList(channel, chainCodeId, name);
+        Contract contract = contracts.get(key);
+        if (contract == null) {
+            contract = contracts.computeIfAbsent(key, k -> {
+                log.info("Getting contract for {} {} {} as {}", channel, chainCodeId, name, this);
+                return getNetwork(channel).getContract(chainCodeId, name);
+            });
+        }
+        return contract;
+    }
+
+    boolean isConnected() {
+        return gateway != null;
+    }
+
+    Exception getConnectError() {
+        return isConnected() ? null : connectError;
+    }
+
+    Map<String, Network> getNetworks() {
+        return Collections.unmodifiableMap(networks);
+    }
+
+    Set<List<String>> getContractKeys() {
+        return Collections.unmodifiableSet(contracts.keySet());
+    }
+
+    AtomicInteger getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Stops routing evaluations here for a while.
+     */
+    void eject(long nanos) {
+        ejectedUntil = System.nanoTime() + nanos;
+        ejected = true;
+    }
+
+    boolean isEjected() {
+        if (ejected && System.nanoTime() - ejectedUntil >= 0) {
+            ejected = false;
+        }
+        return ejected;
+    }
+
+    @Override
+    public String toString() {
+        return identity + "@" + networkConfig;
+    }
+}
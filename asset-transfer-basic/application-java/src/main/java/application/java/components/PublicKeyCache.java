@@ -0,0 +1,86 @@
+package application.java.components;
+
+import application.java.SecureUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.hyperledger.fabric.gateway.ContractEvent;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.PublicKey;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parsed public keys of accounts, so a signature check does not need a ledger query and a key
+ * decode. Entries are dropped when the chaincode reports the account as (re)created, and the
+ * cache only holds keys while that event listener is registered.
+ */
+@Component
+public class PublicKeyCache {
+    private static final String ACCOUNTS_CREATED_EVENT = "AccountsCreated";
+
+    Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    FabricComponent fabric;
+    @Value("${channel}")
+    String channel;
+    @Value("${chaincode.id}")
+    String chaincodeId;
+    @Value("${publickey.cache.size:10000}")
+    long maximumSize;
+
+    private Cache<String, PublicKey> keys;
+    private ContractListenerRegistration listener;
+
+    @PostConstruct
+    public void init() {
+        keys = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        listener = new ContractListenerRegistration(fabric, channel, chaincodeId,
+                Pattern.compile(Pattern.quote(ACCOUNTS_CREATED_EVENT)), this::accountsCreated, keys::invalidateAll);
+    }
+
+    /**
+     * Returns the public key of an account.
+     *
+     * @param accountId the account
+     * @param loader returns the account's base64 encoded public key from the ledger, or null if the account does not exist
+     * @return the key, or null if the account does not exist
+     */
+    public PublicKey get(String accountId, Callable<String> loader) throws Exception {
+        boolean cacheable = listener.ensureRegistered();
+        if (cacheable) {
+            PublicKey publicKey = keys.getIfPresent(accountId);
+            if (publicKey != null) {
+                return publicKey;
+            }
+        }
+
+        String encoded = loader.call();
+        if (encoded == null) {
+            return null;
+        }
+        PublicKey publicKey = SecureUtils.publicKeyFromString(encoded);
+        if (cacheable) {
+            keys.put(accountId, publicKey);
+        }
+        return publicKey;
+    }
+
+    private void accountsCreated(ContractEvent event) {
+        event.getPayload().ifPresent(payload -> {
+            // account ID -> balance
+            JSONObject accounts = new JSONObject(new String(payload, UTF_8));
+            log.debug("Invalidating public keys of {} accounts", accounts.length());
+            keys.invalidateAll(accounts.keySet());
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package application.java.components;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the (id, timestamp) pairs of signed requests, so a captured request, or a client retry
+ * of one that already went through, is not executed twice.
+ *
+ * Only requests with a timestamp within replay.window-ms of the clock are accepted, and their
+ * nonces are only remembered for as long. They are kept in a ring of sets, one per replay.bucket-ms
+ * of request timestamps; a set is replaced by an empty one when the ring comes around to it, by
+ * which time its timestamps are out of the window. Memory is bounded by the requests accepted
+ * within twice the window, which the per-account rate limit bounds in turn.
+ *
+ * The index is per instance: behind a load balancer, a request replayed to another instance is not
+ * caught.
+ */
+@Component
+public class ReplayGuard {
+    @Value("${replay.enabled:true}")
+    boolean enabled;
+    @Value("${replay.window-ms:300000}")
+    long windowMillis;
+    @Value("${replay.bucket-ms:10000}")
+    long bucketMillis;
+
+    private static class Bucket {
+        // timestamp / bucketMillis of the requests in this bucket
+        final long index;
+        final Set<String> nonces = ConcurrentHashMap.newKeySet();
+
+        Bucket(long index) {
+            this.index = index;
+        }
+    }
+
+    private AtomicReferenceArray<Bucket> ring;
+
+    @PostConstruct
+    public void init() {
+        // timestamps from now - window to now + window, and a bucket of slack on each side
+        int size = (int) (2 * ((windowMillis + bucketMillis - 1) / bucketMillis) + 2);
+        ring = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            ring.set(i, new Bucket(Long.MIN_VALUE));
+        }
+    }
+
+    /**
+     * @param timestamp request timestamp, milliseconds since the epoch
+     * @return whether the timestamp is close enough to the clock for the request to be accepted
+     */
+    public boolean inWindow(long timestamp) {
+        return !enabled || Math.abs(System.currentTimeMillis() - timestamp) <= windowMillis;
+    }
+
+    /**
+     * Records a request's nonce. Call only once its signature is verified, so no one else can use
+     * up an account's nonces, and its timestamp is {@link #inWindow}.
+     *
+     * @param kind requests of different kinds sign different texts, so they have separate nonces
+     * @return false if the same request was seen before
+     */
+    public boolean firstUse(String kind, String accountId, int id, long timestamp) {
+        if (!enabled) {
+            return true;
+        }
+        Bucket bucket = bucket(timestamp, true);
+        return bucket != null && bucket.nonces.add(nonce(kind, accountId, id, timestamp));
+    }
+
+    /**
+     * Forgets a nonce recorded by {@link #firstUse}, for a request turned away before it had any
+     * effect, so the client can retry it as it is.
+     */
+    public void forget(String kind, String accountId, int id, long timestamp) {
+        if (!enabled) {
+            return;
+        }
+        Bucket bucket = bucket(timestamp, false);
+        if (bucket != null) {
+            bucket.nonces.remove(nonce(kind, accountId, id, timestamp));
+        }
+    }
+
+    private static String nonce(String kind, String accountId, int id, long timestamp) {
+        return kind + '\0' + accountId + '\0' + id + '\0' + timestamp;
+    }
+
+    // returns null if the ring has already moved past the timestamp's bucket
+    private Bucket bucket(long timestamp, boolean create) {
+        long index = Math.floorDiv(timestamp, bucketMillis);
+        int slot = (int) Math.floorMod(index, (long) ring.length());
+        Bucket bucket = ring.get(slot);
+        while (bucket.index != index) {
+            if (bucket.index > index || !create) {
+                return null;
+            }
+            Bucket fresh = new Bucket(index);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = ring.get(slot);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,214 @@
+package application.java.components;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects transfers for up to send.batch.max-delay-ms milliseconds or send.batch.max-size
+ * transfers and submits them as one SendBatch transaction, so concurrent /send requests cost the
+ * ordering service one transaction instead of one each.
+ *
+ * SendBatch fails as a whole if any transfer fails. When the peers reject it at endorsement, each
+ * half of the batch is queued again on its own, and so on down to single transfers submitted with
+ * Send, so only the failing transfers fail. The halves wait for their own accounts only, rather than
+ * the failed batch holding all of its accounts while its transfers are retried. A batch that failed
+ * after it was sent for ordering, or timed out, is not retried, since it may still commit.
+ *
+ * At most send.batch.queue transfers wait for a batch; beyond that they are turned away with
+ * RejectedExecutionException.
+ */
+@Component
+public class SendBatcher {
+    Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    FabricComponent fabric;
+    @Autowired
+    FabricMetrics metrics;
+    @Autowired
+    AccountSequencer sequencer;
+    @Autowired
+    MeterRegistry registry;
+    @Value("${channel}")
+    String channel;
+    @Value("${chaincode.id}")
+    String chaincodeId;
+    @Value("${send.batch.max-size:50}")
+    int maxSize;
+    @Value("${send.batch.max-delay-ms:5}")
+    long maxDelayMillis;
+    // batches submitted concurrently while the next one is collected
+    @Value("${send.batch.threads:4}")
+    int threads;
+    @Value("${send.batch.queue:1000}")
+    int queueSize;
+
+    private BlockingQueue<PendingSend> queue;
+    private ExecutorService submitters;
+    private Thread collector;
+
+    private static class PendingSend {
+        final String fromId;
+        final String toId;
+        final long amount;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingSend(String fromId, String toId, long amount) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.amount = amount;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueSize);
+        Gauge.builder("app.send.batch.queued", queue, BlockingQueue::size).register(registry);
+        submitters = Executors.newFixedThreadPool(threads);
+        collector = new Thread(this::collect, "send-batcher");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        collector.interrupt();
+        collector.join();
+        submitters.shutdown();
+        submitters.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queues a transfer for the next batch.
+     *
+     * @param amount amount in minor units
+     * @return completes when the transfer is committed, or exceptionally if it failed or
+     *         send.batch.queue transfers are already waiting
+     */
+    public CompletableFuture<Void> send(String fromId, String toId, long amount) {
+        // rejected here rather than failing the batch they would be in
+        if (amount <= 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Amount must be positive"));
+        }
+        if (fromId.equals(toId)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Cannot send to the same account"));
+        }
+        PendingSend send = new PendingSend(fromId, toId, amount);
+        if (!queue.offer(send)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many transfers waiting for a batch"));
+        }
+        return send.result;
+    }
+
+    private void collect() {
+        try {
+            while (true) {
+                List<PendingSend> batch = new ArrayList<>(maxSize);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < maxSize) {
+                    PendingSend next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                schedule(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingSend send;
+        while ((send = queue.poll()) != null) {
+            send.result.completeExceptionally(new RejectedExecutionException("Application is shutting down"));
+        }
+    }
+
+    // submits the transfers after the batches and sends touching the same accounts, which they would conflict with
+    private void schedule(List<PendingSend> batch) {
+        List<String> accountIds = new ArrayList<>(batch.size() * 2);
+        for (PendingSend send : batch) {
+            accountIds.add(send.fromId);
+            accountIds.add(send.toId);
+        }
+        sequencer.submit(accountIds, () -> {
+            submit(batch);
+            return null;
+        }, submitters).exceptionally(e -> {
+            batch.forEach(send -> send.result.completeExceptionally(e));
+            return null;
+        });
+    }
+
+    private void submit(List<PendingSend> batch) {
+        Contract contract;
+        try {
+            contract = fabric.getContract(channel, chaincodeId);
+        } catch (RuntimeException e) {
+            batch.forEach(send -> send.result.completeExceptionally(e));
+            return;
+        }
+
+        if (batch.size() == 1) {
+            submitOne(contract, batch.get(0));
+            return;
+        }
+
+        JSONArray legs = new JSONArray();
+        for (PendingSend send : batch) {
+            JSONObject leg = new JSONObject();
+            leg.put("from", send.fromId);
+            leg.put("to", send.toId);
+            leg.put("amount", send.amount);
+            legs.put(leg);
+        }
+        try {
+            metrics.submit(contract.createTransaction("SendBatch"), legs.toString());
+            log.debug("Submitted batch of {} transfers", batch.size());
+            batch.forEach(send -> send.result.complete(null));
+        } catch (ContractException e) {
+            if (e.getProposalResponses() == null || e.getProposalResponses().isEmpty()) {
+                // failed after endorsement, so the batch may still commit
+                batch.forEach(send -> send.result.completeExceptionally(e));
+                return;
+            }
+            // queued in order, so a half sharing accounts with the first still runs after it
+            log.info("Batch of {} transfers failed, retrying it in halves: {}", batch.size(), e.getMessage());
+            int half = batch.size() / 2;
+            schedule(new ArrayList<>(batch.subList(0, half)));
+            schedule(new ArrayList<>(batch.subList(half, batch.size())));
+        } catch (Exception e) {
+            batch.forEach(send -> send.result.completeExceptionally(e));
+        }
+    }
+
+    private void submitOne(Contract contract, PendingSend send) {
+        try {
+            metrics.submit(contract.createTransaction("Send"), send.fromId, send.toId, String.valueOf(send.amount));
+            send.result.complete(null);
+        } catch (Exception e) {
+            send.result.completeExceptionally(e);
+        }
+    }
+}
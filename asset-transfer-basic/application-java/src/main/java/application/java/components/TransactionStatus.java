@@ -0,0 +1,19 @@
+package application.java.components;
+
+import lombok.Value;
+
+@Value
+public class TransactionStatus {
+    public enum State {
+        PENDING,
+        // endorsed and sent to the orderer, waiting for the commit
+        SUBMITTED,
+        COMMITTED,
+        FAILED,
+    }
+
+    private final String transactionId;
+    private final State state;
+    // error of a failed transaction
+    private final String message;
+}
@@ -0,0 +1,243 @@
+package application.java.components;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.DefaultCommitHandlers;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.gateway.Transaction;
+import org.hyperledger.fabric.gateway.spi.CommitListener;
+import org.hyperledger.fabric.gateway.spi.PeerDisconnectEvent;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.Channel;
+import org.hyperledger.fabric.sdk.Peer;
+import org.hyperledger.fabric.sdk.exception.InvalidArgumentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Submits transactions in the background, so a request returns as soon as the transaction is
+ * queued instead of holding its thread until the transaction is committed.
+ *
+ * A pool thread endorses a transaction and sends it to the orderer, then moves on; its commit is
+ * followed by a listener on the commit events of the organization's peers. The number of
+ * transactions being endorsed is bounded by the pool size, and the number waiting for a thread by
+ * the queue size. Beyond that submit throws RejectedExecutionException, which the caller reports so
+ * clients can back off. Failures are logged and counted in app.submit.async.failed, by stage:
+ * submit for endorsement, ordering or rejection by the pool, commit for an invalidated transaction
+ * or no commit event in time.
+ */
+@Component
+public class TransactionSubmitter {
+    Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    FabricMetrics metrics;
+    @Autowired
+    AccountSequencer sequencer;
+    @Autowired
+    MeterRegistry registry;
+    @Value("${submit.async.threads:200}")
+    int threads;
+    @Value("${submit.async.queue:1000}")
+    int queueSize;
+    @Value("${submit.async.status.minutes:10}")
+    long statusMinutes;
+    // a transaction not committed by then is reported as FAILED, though it may still commit later
+    @Value("${submit.async.commit.seconds:300}")
+    long commitSeconds;
+    // on virtual threads submit.async.threads can be in the thousands
+    @Value("${app.virtual-threads:false}")
+    boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+    private Cache<String, TransactionStatus> statuses;
+
+    @PostConstruct
+    public void init() {
+        ThreadFactory threadFactory = virtualThreads
+                ? VirtualThreads.factory("submit-")
+                : Executors.defaultThreadFactory();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory);
+        statuses = CacheBuilder.newBuilder().expireAfterWrite(statusMinutes, TimeUnit.MINUTES).build();
+        Gauge.builder("app.submit.async.queued", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queues a transaction for submission.
+     *
+     * @return the transaction ID, to look up its status with {@link #getStatus(String)}
+     * @throws RejectedExecutionException if too many transactions are in flight
+     */
+    public String submit(Network network, Contract contract, String name, String... args) {
+        return submit(network, contract, Collections.emptyList(), name, args);
+    }
+
+    /**
+     * Queues a transaction for submission once the transactions queued before it that touch any of
+     * the accounts have been committed, see {@link AccountSequencer}.
+     *
+     * @param network the network of the contract, whose commit events are followed
+     * @return the transaction ID, to look up its status with {@link #getStatus(String)}
+     * @throws RejectedExecutionException if too many transactions are in flight. A transaction that
+     *         has to wait is only rejected when its turn comes, and then reported as FAILED.
+     */
+    public String submit(Network network, Contract contract, Collection<String> accountIds, String name, String... args) {
+        Transaction transaction = contract.createTransaction(name);
+        // return once the orderer has the transaction, instead of waiting for the commit
+        transaction.setCommitHandler(metrics.timing(DefaultCommitHandlers.NONE));
+        String transactionId = transaction.getTransactionId();
+        statuses.put(transactionId, new TransactionStatus(transactionId, TransactionStatus.State.PENDING, null));
+
+        CompletableFuture<BlockEvent.TransactionEvent> result = sequencer.submitAsync(accountIds, () -> {
+            CommitTracker commit = new CommitTracker(network, transactionId);
+            try {
+                metrics.submit(transaction, args);
+            } catch (Exception e) {
+                commit.cancel();
+                throw e;
+            }
+            statuses.put(transactionId, new TransactionStatus(transactionId, TransactionStatus.State.SUBMITTED, null));
+            return commit.orTimeout(commitSeconds, TimeUnit.SECONDS);
+        }, executor);
+        if (result.isCompletedExceptionally()) {
+            try {
+                result.getNow(null);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    statuses.invalidate(transactionId);
+                    throw (RejectedExecutionException) e.getCause();
+                }
+            }
+        }
+        result.whenComplete((event, e) -> {
+            if (e == null && event.isValid()) {
+                statuses.put(transactionId, new TransactionStatus(transactionId, TransactionStatus.State.COMMITTED, null));
+                return;
+            }
+            // reported as soon as it happens, without waiting for the client to ask
+            TransactionStatus status = statuses.getIfPresent(transactionId);
+            boolean ordered = status != null && status.getState() == TransactionStatus.State.SUBMITTED;
+            if (e == null) {
+                e = new IllegalStateException("Transaction invalidated: " + TxValidationCode.forNumber(event.getValidationCode()));
+            } else if (e instanceof TimeoutException) {
+                e = new TimeoutException("No commit event within " + commitSeconds + " seconds");
+            }
+            failed(ordered ? "commit" : "submit", name, transactionId, e);
+        });
+        return transactionId;
+    }
+
+    private void failed(String stage, String name, String transactionId, Throwable e) {
+        log.error("Error at {} of {} {}", stage, name, transactionId, e);
+        registry.counter("app.submit.async.failed", "stage", stage).increment();
+        statuses.put(transactionId, new TransactionStatus(transactionId, TransactionStatus.State.FAILED, e.getMessage()));
+    }
+
+    /**
+     * Returns the status of a transaction queued by this instance, or null if it is unknown or
+     * its status has expired.
+     */
+    public TransactionStatus getStatus(String transactionId) {
+        return statuses.getIfPresent(transactionId);
+    }
+
+    /**
+     * Completes with the commit event of a transaction once every peer of the client's organization
+     * that sends commit events has reported it, like the gateway's MSPID_SCOPE_ALLFORTX commit
+     * handler, so a transaction after it on the same accounts reads what it wrote. An invalidated
+     * transaction completes on the first report. Peers that disconnect are no longer waited for.
+     */
+    private static class CommitTracker extends CompletableFuture<BlockEvent.TransactionEvent> implements CommitListener {
+        private final Network network;
+        private final String transactionId;
+        private final Set<Peer> waiting;
+        private BlockEvent.TransactionEvent committed;
+
+        CommitTracker(Network network, String transactionId) {
+            this.network = network;
+            this.transactionId = transactionId;
+            this.waiting = new HashSet<>(peers(network));
+            if (waiting.isEmpty()) {
+                throw new IllegalStateException("No peer of the organization sends commit events");
+            }
+            // listen before submitting, so the event cannot be missed
+            network.addCommitListener(this, new ArrayList<>(waiting), transactionId);
+            whenComplete((event, e) -> network.removeCommitListener(this));
+        }
+
+        private static Collection<Peer> peers(Network network) {
+            Channel channel = network.getChannel();
+            try {
+                Collection<Peer> peers = new ArrayList<>(channel.getPeersForOrganization(network.getGateway().getIdentity().getMspId()));
+                peers.retainAll(channel.getPeers(EnumSet.of(Peer.PeerRole.EVENT_SOURCE)));
+                return peers;
+            } catch (InvalidArgumentException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public synchronized void acceptCommit(BlockEvent.TransactionEvent event) {
+            if (!event.isValid()) {
+                complete(event);
+                return;
+            }
+            committed = event;
+            waiting.remove(event.getPeer());
+            completeIfDone();
+        }
+
+        @Override
+        public synchronized void acceptDisconnect(PeerDisconnectEvent event) {
+            waiting.remove(event.getPeer());
+            completeIfDone();
+        }
+
+        private void completeIfDone() {
+            if (!waiting.isEmpty()) {
+                return;
+            }
+            if (committed != null) {
+                complete(committed);
+            } else {
+                completeExceptionally(new IllegalStateException("No peer left to report the commit of " + transactionId));
+            }
+        }
+
+        void cancel() {
+            network.removeCommitListener(this);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package application.java.components;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads, which need Java 21. The application is compiled for Java 17, so they are
+ * looked up at run time, and only once app.virtual-threads=true asks for them.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Whether the running JVM has virtual threads.
+     */
+    public static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor().
+     *
+     * @throws IllegalStateException if the JVM is older than Java 21
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * Thread.ofVirtual().name(prefix, 0).factory(), which names the threads prefix0, prefix1 and so on.
+     *
+     * @throws IllegalStateException if the JVM is older than Java 21
+     */
+    public static ThreadFactory factory(String prefix) {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Method name = builder.getMethod("name", String.class, long.class);
+            Method factory = builder.getMethod("factory");
+            Object ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) factory.invoke(name.invoke(ofVirtual, prefix, 0L));
+        } catch (ReflectiveOperationException e) {
+            throw unavailable(e);
+        }
+    }
+
+    private static IllegalStateException unavailable(ReflectiveOperationException e) {
+        if (e instanceof InvocationTargetException) {
+            return new IllegalStateException(e.getCause());
+        }
+        return new IllegalStateException("Virtual threads need Java 21, this is Java "
+                + System.getProperty("java.specification.version"), e);
+    }
+}
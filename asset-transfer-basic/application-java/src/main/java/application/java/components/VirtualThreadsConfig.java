@@ -0,0 +1,29 @@
+package application.java.components;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With app.virtual-threads=true, Tomcat runs every request on its own virtual thread instead of
+ * its pool of server.tomcat.threads.max platform threads. Requests spend most of their time
+ * blocked on calls to the peers, so the number of requests in flight is then limited by
+ * server.tomcat.max-connections rather than by the thread pool. This needs Java 21; on an older
+ * JVM the application does not start.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads", havingValue = "true")
+public class VirtualThreadsConfig {
+    Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            log.info("Handling requests on virtual threads");
+            protocolHandler.setExecutor(VirtualThreads.newPerTaskExecutor());
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package application.java.dto;
+
+import application.java.Code;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+public class BalanceResponse implements Response {
+    private Code code;
+    private BigDecimal balance;
+    private int id;
+}
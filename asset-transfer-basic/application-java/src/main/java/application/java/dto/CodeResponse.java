@@ -0,0 +1,25 @@
+package application.java.dto;
+
+import application.java.Code;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CodeResponse implements Response {
+    public static final CodeResponse OK = new CodeResponse(Code.OK, null);
+    public static final CodeResponse BAD_SIG = new CodeResponse(Code.INVALID_SIG, "Signature is invalid");
+    public static final CodeResponse ACCOUNT_NOT_EXIST = new CodeResponse(Code.ACCOUNT_NOT_EXIST, "Account not exists on ledger");
+    public static final CodeResponse BUSY = new CodeResponse(Code.BUSY, "Too many transactions in flight, retry later");
+    public static final CodeResponse TX_NOT_EXIST = new CodeResponse(Code.TX_NOT_EXIST, "Transaction unknown or expired");
+    public static final CodeResponse THROTTLED = new CodeResponse(Code.THROTTLED, "Too many requests for this account, retry later");
+    public static final CodeResponse REPLAYED = new CodeResponse(Code.REPLAYED, "Request with this id and timestamp was already received");
+    public static final CodeResponse EXPIRED = new CodeResponse(Code.EXPIRED, "Timestamp is too far from the server clock");
+
+    private Code code;
+    private String msg;
+
+    public static CodeResponse error(String msg) {
+        return new CodeResponse(Code.ERR, msg);
+    }
+}
@@ -1,8 +1,11 @@
 package application.java.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
 @Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class CreateAccountDto {
     private String accountId;
     private String publicKey;
@@ -0,0 +1,14 @@
+package application.java.dto;
+
+import application.java.Code;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CreateAccountsResponse implements Response {
+    private Code code;
+    // accounts created before an error, when code is ERR
+    private int created;
+    private String msg;
+}
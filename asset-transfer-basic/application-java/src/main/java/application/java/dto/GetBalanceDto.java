@@ -4,18 +4,30 @@ import application.java.SignedData;
 import application.java.SecureUtils;
 import lombok.Value;
 
+import java.security.PublicKey;
+
 @Value
 public class GetBalanceDto implements SignedData {
     private int id;
     private long timestamp;
     private String signature;
     private String accountId;
+    // read the balance from the ledger instead of the cache, not part of the signed text
+    private Boolean consistent;
+
+    private String signedText() {
+        // id+timestamp+param1+val1+param2+val2+...+paramN+valN+key
+        return String.format("%d%d%s%s", id, timestamp, "accountId", accountId);
+    }
 
     @Override
     public boolean validate(String key) {
-        // id+timestamp+param1+val1+param2+val2+...+paramN+valN+key
-        String s = String.format("%d%d%s%s", id, timestamp, "accountId", accountId);
-        return SecureUtils.verify(s, signature, key);
+        return SecureUtils.verify(signedText(), signature, key);
+    }
+
+    @Override
+    public boolean validate(PublicKey publicKey) {
+        return SecureUtils.verify(signedText(), signature, publicKey);
     }
 
 }
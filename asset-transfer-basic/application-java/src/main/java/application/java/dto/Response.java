@@ -0,0 +1,10 @@
+package application.java.dto;
+
+import application.java.Code;
+
+/**
+ * A response body of the REST endpoints.
+ */
+public interface Response {
+    Code getCode();
+}
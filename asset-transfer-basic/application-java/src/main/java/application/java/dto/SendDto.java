@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Value;
 
+import java.security.PublicKey;
+
 @Value
 public class SendDto implements SignedData {
     private int id;
@@ -16,13 +18,21 @@ public class SendDto implements SignedData {
     private String toId;
     private double amount;
 
-    @Override
-    public boolean validate(String key) {
+    private String signedText() {
         // id+timestamp+param1+val1+param2+val2+...+paramN+valN+key
-        String s = String.format("%d%d%s%s%s%s%s%f", id, timestamp,
+        return String.format("%d%d%s%s%s%s%s%f", id, timestamp,
                 "fromId", fromId,
                 "toId", toId,
                 "amount", amount);
-        return SecureUtils.verify(s, signature, key);
+    }
+
+    @Override
+    public boolean validate(String key) {
+        return SecureUtils.verify(signedText(), signature, key);
+    }
+
+    @Override
+    public boolean validate(PublicKey publicKey) {
+        return SecureUtils.verify(signedText(), signature, publicKey);
     }
 }
@@ -0,0 +1,14 @@
+package application.java.dto;
+
+import application.java.Code;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SendResponse implements Response {
+    private Code code;
+    private int id;
+    // only set by /send/async
+    private String txId;
+}
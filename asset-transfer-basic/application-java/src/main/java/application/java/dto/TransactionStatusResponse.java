@@ -0,0 +1,15 @@
+package application.java.dto;
+
+import application.java.Code;
+import application.java.components.TransactionStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionStatusResponse implements Response {
+    private Code code;
+    private String txId;
+    private TransactionStatus.State status;
+    private String msg;
+}
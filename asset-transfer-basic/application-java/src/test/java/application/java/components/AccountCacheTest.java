@@ -0,0 +1,204 @@
+package application.java.components;
+
+import application.java.Account;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountCacheTest {
+    private final AccountCache cache = new AccountCache();
+    private final FabricComponent fabric = mock(FabricComponent.class);
+    private final Contract contract = mock(Contract.class);
+
+    // the balance the ledger returns, and how many times it was read
+    private volatile long balance = 5;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Callable<Account> loader = () -> {
+        loads.incrementAndGet();
+        return new Account("a", "key", balance);
+    };
+
+    @BeforeEach
+    void setUp() {
+        when(fabric.getContract(anyString(), anyString())).thenReturn(contract);
+        cache.fabric = fabric;
+        cache.channel = "mychannel";
+        cache.chaincodeId = "basic";
+        cache.enabled = true;
+        cache.maximumSize = 100;
+        cache.maxAgeMillis = 60_000;
+        cache.init();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<ContractEvent> listener() {
+        ArgumentCaptor<Consumer<ContractEvent>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(contract).addContractListener(listener.capture(), any(Pattern.class));
+        return listener.getValue();
+    }
+
+    private void event(String name, String payload) {
+        ContractEvent event = mock(ContractEvent.class);
+        when(event.getName()).thenReturn(name);
+        when(event.getPayload()).thenReturn(Optional.of(payload.getBytes(UTF_8)));
+        listener().accept(event);
+    }
+
+    private long get() throws Exception {
+        return cache.get("a", false, loader).getBalance();
+    }
+
+    @Test
+    void loadsAnAccountOnce() throws Exception {
+        assertThat(get()).isEqualTo(5);
+        balance = 6;
+
+        assertThat(get()).isEqualTo(5);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void readsTheLedgerWhenBypassed() throws Exception {
+        get();
+        balance = 6;
+
+        assertThat(cache.get("a", true, loader).getBalance()).isEqualTo(6);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void readsTheLedgerWhenDisabled() throws Exception {
+        cache.enabled = false;
+        get();
+        balance = 6;
+
+        assertThat(get()).isEqualTo(6);
+        verify(contract, never()).addContractListener(any(), any(Pattern.class));
+    }
+
+    @Test
+    void cachesNothingWhileDisconnected() throws Exception {
+        when(fabric.getContract(anyString(), anyString())).thenThrow(new IllegalStateException("Not connected"));
+
+        get();
+        get();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void updatesACachedBalanceFromAnEvent() throws Exception {
+        get();
+
+        event("BalancesChanged", "{\"a\":9,\"b\":3}");
+
+        assertThat(cache.get("a", false, loader)).isEqualTo(new Account("a", "key", 9));
+        assertThat(loads).hasValue(1);
+        // b was not cached, so the event does not add it
+        cache.get("b", false, () -> new Account("b", "key", 4));
+        assertThat(cache.get("b", false, () -> null).getBalance()).isEqualTo(4);
+    }
+
+    @Test
+    void dropsAnInvalidatedAccount() throws Exception {
+        get();
+        balance = 6;
+
+        event("BalancesInvalidated", "[\"a\"]");
+
+        assertThat(get()).isEqualTo(6);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void dropsEverythingWhenTheListenerIsRegisteredAgain() throws Exception {
+        get();
+        balance = 6;
+
+        // a reconnection yields a new contract, which the events missed in between are not applied to
+        when(fabric.getContract(anyString(), anyString())).thenReturn(mock(Contract.class));
+
+        assertThat(get()).isEqualTo(6);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void cachesALoadThatFollowsAnEvent() throws Exception {
+        get();
+        event("BalancesInvalidated", "[\"a\"]");
+        balance = 6;
+
+        assertThat(get()).isEqualTo(6);
+        assertThat(get()).isEqualTo(6);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void doesNotCacheALoadThatOverlapsAnEvent() throws Exception {
+        // registers the listener
+        cache.get("b", false, () -> null);
+
+        // the load reads the old balance, then the event for the transfer that changed it arrives
+        Account account = cache.get("a", false, () -> {
+            loads.incrementAndGet();
+            event("BalancesChanged", "{\"a\":9}");
+            return new Account("a", "key", 5);
+        });
+
+        assertThat(account.getBalance()).isEqualTo(5);
+        balance = 9;
+        assertThat(get()).isEqualTo(9);
+        assertThat(get()).isEqualTo(9);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void doesNotCacheALoadRacingAnEventOnAnotherThread() throws Exception {
+        cache.get("b", false, () -> null);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Account> load = executor.submit(() -> cache.get("a", false, () -> {
+                reading.countDown();
+                changed.await();
+                return new Account("a", "key", 5);
+            }));
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the event for an account not cached yet, delivered while the ledger read is under way
+            event("BalancesChanged", "{\"a\":9}");
+            changed.countDown();
+
+            assertThat(load.get(5, TimeUnit.SECONDS).getBalance()).isEqualTo(5);
+        } finally {
+            executor.shutdown();
+        }
+
+        balance = 9;
+        assertThat(get()).isEqualTo(9);
+        assertThat(loads).hasValue(1);
+    }
+}
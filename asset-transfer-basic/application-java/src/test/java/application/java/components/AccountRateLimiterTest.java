@@ -0,0 +1,83 @@
+package application.java.components;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountRateLimiterTest {
+    private final AccountRateLimiter limiter = new AccountRateLimiter();
+
+    private void init(double perSecond, int burst) {
+        limiter.enabled = true;
+        limiter.perSecond = perSecond;
+        limiter.burst = burst;
+        limiter.maximumAccounts = 100;
+        limiter.init();
+    }
+
+    private int acquire(String accountId, int times) {
+        int acquired = 0;
+        for (int i = 0; i < times; i++) {
+            if (limiter.tryAcquire(accountId)) {
+                acquired++;
+            }
+        }
+        return acquired;
+    }
+
+    @Test
+    void allowsABurstThenTurnsRequestsAway() {
+        // one token a minute, so none come back during the test
+        init(1.0 / 60, 3);
+
+        assertThat(acquire("a", 5)).isEqualTo(3);
+        assertThat(limiter.tryAcquire("a")).isFalse();
+    }
+
+    @Test
+    void keepsABucketPerAccount() {
+        init(1.0 / 60, 3);
+
+        assertThat(acquire("a", 5)).isEqualTo(3);
+        assertThat(acquire("b", 5)).isEqualTo(3);
+        assertThat(limiter.tryAcquire("a")).isFalse();
+    }
+
+    @Test
+    void refillsATokenPerInterval() throws InterruptedException {
+        // a token every 200 ms
+        init(5, 2);
+        assertThat(acquire("a", 3)).isEqualTo(2);
+
+        Thread.sleep(250);
+
+        assertThat(acquire("a", 2)).isEqualTo(1);
+    }
+
+    @Test
+    void refillsNoMoreThanTheBurst() throws InterruptedException {
+        // a token every 20 ms
+        init(50, 2);
+        assertThat(acquire("a", 2)).isEqualTo(2);
+
+        // time for ten tokens, of which the bucket holds two
+        Thread.sleep(200);
+
+        assertThat(acquire("a", 5)).isEqualTo(2);
+    }
+
+    @Test
+    void letsEverythingThroughWhenDisabled() {
+        init(1.0 / 60, 1);
+        limiter.enabled = false;
+
+        assertThat(acquire("a", 5)).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotLimitRequestsWithoutAnAccount() {
+        init(1.0 / 60, 1);
+
+        assertThat(acquire(null, 5)).isEqualTo(5);
+    }
+}
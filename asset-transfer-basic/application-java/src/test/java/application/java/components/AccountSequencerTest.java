@@ -0,0 +1,177 @@
+package application.java.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class AccountSequencerTest {
+    private final AccountSequencer sequencer = new AccountSequencer();
+    // runs the tasks that hold a stripe, and the callers that wait behind them
+    private final ExecutorService other = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        sequencer.enabled = true;
+        sequencer.stripes = 1024;
+        sequencer.depth = 16;
+        sequencer.queueSize = 2;
+        sequencer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        other.shutdown();
+    }
+
+    // a task on the accounts that runs until release is counted down
+    private CompletableFuture<String> hold(String... accountIds) {
+        return sequencer.submit(Arrays.asList(accountIds), () -> {
+            release.await();
+            return "held";
+        }, other);
+    }
+
+    private <T> T call(Collection<String> accountIds, Callable<T> task) throws Exception {
+        return sequencer.call(accountIds, task, 5, TimeUnit.SECONDS);
+    }
+
+    // calls the sequencer from one of the other threads, as a second request would
+    private <T> Future<T> callFromOther(Collection<String> accountIds, Callable<T> task) {
+        return other.submit(() -> call(accountIds, task));
+    }
+
+    @Test
+    void runsOnTheCallersThreadWhenNothingIsQueued() throws Exception {
+        assertThat(call(Arrays.asList("a", "b"), Thread::currentThread)).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    void runsStraightAwayWhenSequencingIsOff() throws Exception {
+        sequencer.enabled = false;
+        hold("a");
+
+        assertThat(call(Collections.singletonList("a"), () -> "a")).isEqualTo("a");
+    }
+
+    @Test
+    void runsStraightAwayWhenOnlyOtherAccountsAreBusy() throws Exception {
+        hold("a");
+
+        assertThat(call(Collections.singletonList("b"), () -> "b")).isEqualTo("b");
+    }
+
+    @Test
+    void waitsForTheEarlierTasksOnItsAccountsOnTheCallersThread() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        hold("a").thenAccept(order::add);
+
+        Future<Boolean> second = other.submit(() -> {
+            Thread caller = Thread.currentThread();
+            return call(Arrays.asList("b", "a"), () -> {
+                order.add("second");
+                return Thread.currentThread() == caller;
+            });
+        });
+        Thread.sleep(50);
+        Future<String> third = callFromOther(Collections.singletonList("b"), () -> {
+            order.add("third");
+            return "third";
+        });
+
+        Thread.sleep(50);
+        assertThat(second).isNotDone();
+        assertThat(third).isNotDone();
+        release.countDown();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        third.get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("held", "second", "third");
+    }
+
+    @Test
+    void startsTheNextTaskAfterAFailure() throws Exception {
+        Throwable thrown = catchThrowable(() -> call(Collections.singletonList("a"), () -> {
+            throw new IllegalStateException("endorsement failed");
+        }));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(call(Collections.singletonList("a"), () -> "next")).isEqualTo("next");
+    }
+
+    @Test
+    void rejectsACallerThatWouldWaitBeyondTheQueue() throws Exception {
+        hold("a");
+        Future<String> queued1 = callFromOther(Collections.singletonList("a"), () -> "1");
+        Future<String> queued2 = callFromOther(Collections.singletonList("a"), () -> "2");
+        Thread.sleep(50);
+
+        assertThatThrownBy(() -> call(Collections.singletonList("a"), () -> "3"))
+                .isInstanceOf(RejectedExecutionException.class);
+        // a task with nothing to wait for still runs
+        assertThat(call(Collections.singletonList("b"), () -> "b")).isEqualTo("b");
+
+        release.countDown();
+        assertThat(queued1.get(5, TimeUnit.SECONDS)).isEqualTo("1");
+        assertThat(queued2.get(5, TimeUnit.SECONDS)).isEqualTo("2");
+        // the rejected task left no trace on the stripe, and its slot is free again
+        assertThat(call(Collections.singletonList("a"), () -> "4")).isEqualTo("4");
+    }
+
+    @Test
+    void rejectsATaskBeyondTheDepthOfAStripe() throws Exception {
+        sequencer.depth = 2;
+        sequencer.queueSize = 100;
+        sequencer.init();
+        hold("a");
+        hold("a");
+
+        assertThatThrownBy(() -> call(Arrays.asList("b", "a"), () -> "rejected"))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(sequencer.submit(Collections.singletonList("a"), () -> "rejected", other))
+                .isCompletedExceptionally();
+        // the rejected tasks did not take the place of the last task on b
+        assertThat(call(Collections.singletonList("b"), () -> "b")).isEqualTo("b");
+
+        release.countDown();
+        // counted down as the held tasks finish
+        Thread.sleep(50);
+        assertThat(call(Collections.singletonList("a"), () -> "a")).isEqualTo("a");
+    }
+
+    @Test
+    void givesUpWhenTheEarlierTasksTakeTooLong() throws Exception {
+        hold("a");
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThatThrownBy(() -> sequencer.call(Collections.singletonList("a"), () -> ran.getAndSet(true),
+                50, TimeUnit.MILLISECONDS)).isInstanceOf(RejectedExecutionException.class);
+        assertThat(ran).isFalse();
+
+        // the next task still waits for the held one
+        CompletableFuture<String> next = sequencer.submit(Collections.singletonList("a"), () -> "next", other);
+        Thread.sleep(50);
+        assertThat(next).isNotDone();
+        release.countDown();
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("next");
+    }
+}
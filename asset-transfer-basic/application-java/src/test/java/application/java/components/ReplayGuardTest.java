@@ -0,0 +1,125 @@
+package application.java.components;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayGuardTest {
+    private static final long WINDOW = 60_000;
+    private static final long BUCKET = 10_000;
+    // timestamps from now - window to now + window, and a bucket of slack on each side
+    private static final int RING = 14;
+
+    private final ReplayGuard guard = new ReplayGuard();
+
+    @BeforeEach
+    void setUp() {
+        guard.enabled = true;
+        guard.windowMillis = WINDOW;
+        guard.bucketMillis = BUCKET;
+        guard.init();
+    }
+
+    @Test
+    void acceptsTimestampsWithinTheWindowOnEitherSide() {
+        long now = System.currentTimeMillis();
+
+        assertThat(guard.inWindow(now)).isTrue();
+        assertThat(guard.inWindow(now - WINDOW + 1_000)).isTrue();
+        assertThat(guard.inWindow(now + WINDOW - 1_000)).isTrue();
+        assertThat(guard.inWindow(now - WINDOW - 1_000)).isFalse();
+        assertThat(guard.inWindow(now + WINDOW + 1_000)).isFalse();
+    }
+
+    @Test
+    void rejectsARequestSeenBefore() {
+        long now = System.currentTimeMillis();
+
+        assertThat(guard.firstUse("send", "a", 1, now)).isTrue();
+        assertThat(guard.firstUse("send", "a", 1, now)).isFalse();
+    }
+
+    @Test
+    void keepsNoncesApartByKindAccountIdAndTimestamp() {
+        long now = System.currentTimeMillis();
+        assertThat(guard.firstUse("send", "a", 1, now)).isTrue();
+
+        assertThat(guard.firstUse("balance", "a", 1, now)).isTrue();
+        assertThat(guard.firstUse("send", "b", 1, now)).isTrue();
+        assertThat(guard.firstUse("send", "a", 2, now)).isTrue();
+        assertThat(guard.firstUse("send", "a", 1, now + 1)).isTrue();
+    }
+
+    @Test
+    void remembersNoncesAcrossABucketBoundary() {
+        long start = (System.currentTimeMillis() / BUCKET) * BUCKET;
+
+        assertThat(guard.firstUse("send", "a", 1, start - 1)).isTrue();
+        assertThat(guard.firstUse("send", "a", 1, start)).isTrue();
+
+        assertThat(guard.firstUse("send", "a", 1, start - 1)).isFalse();
+        assertThat(guard.firstUse("send", "a", 1, start)).isFalse();
+    }
+
+    @Test
+    void dropsABucketWhenTheRingComesAroundToIt() {
+        long old = System.currentTimeMillis() - WINDOW;
+        long later = old + RING * BUCKET;
+        assertThat(guard.firstUse("send", "a", 1, old)).isTrue();
+
+        // takes over the old bucket's slot
+        assertThat(guard.firstUse("send", "a", 2, later)).isTrue();
+
+        // the old timestamp's bucket is gone, so it can no longer be checked and is turned away
+        assertThat(guard.firstUse("send", "a", 3, old)).isFalse();
+        assertThat(guard.firstUse("send", "a", 2, later)).isFalse();
+    }
+
+    @Test
+    void keepsBucketsThatDoNotShareASlot() {
+        long old = System.currentTimeMillis() - WINDOW;
+        assertThat(guard.firstUse("send", "a", 1, old)).isTrue();
+
+        for (int i = 1; i < RING; i++) {
+            assertThat(guard.firstUse("send", "a", 1, old + i * BUCKET)).isTrue();
+        }
+
+        assertThat(guard.firstUse("send", "a", 1, old)).isFalse();
+    }
+
+    @Test
+    void forgetsANonceSoTheRequestCanBeRetried() {
+        long now = System.currentTimeMillis();
+        assertThat(guard.firstUse("send", "a", 1, now)).isTrue();
+        assertThat(guard.firstUse("send", "a", 2, now)).isTrue();
+
+        guard.forget("send", "a", 1, now);
+
+        assertThat(guard.firstUse("send", "a", 1, now)).isTrue();
+        assertThat(guard.firstUse("send", "a", 2, now)).isFalse();
+    }
+
+    @Test
+    void forgetsNothingOnceTheBucketIsGone() {
+        long old = System.currentTimeMillis() - WINDOW;
+        long later = old + RING * BUCKET;
+        assertThat(guard.firstUse("send", "a", 1, later)).isTrue();
+
+        // neither creates the old bucket nor touches the one in its slot
+        guard.forget("send", "a", 1, old);
+        guard.forget("send", "a", 1, old + BUCKET);
+
+        assertThat(guard.firstUse("send", "a", 1, later)).isFalse();
+    }
+
+    @Test
+    void acceptsEverythingWhenDisabled() {
+        guard.enabled = false;
+        long now = System.currentTimeMillis();
+
+        assertThat(guard.inWindow(0)).isTrue();
+        assertThat(guard.firstUse("send", "a", 1, now)).isTrue();
+        assertThat(guard.firstUse("send", "a", 1, now)).isTrue();
+    }
+}
@@ -0,0 +1,217 @@
+package application.java.components;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.gateway.Transaction;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+import org.json.JSONArray;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SendBatcherTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AccountSequencer sequencer = new AccountSequencer();
+    private final SendBatcher batcher = new SendBatcher();
+    private final Contract contract = mock(Contract.class);
+
+    // each submitted transaction as its name followed by the "from" accounts of its transfers
+    private final List<List<String>> submitted = new CopyOnWriteArrayList<>();
+    // holds a retried transaction with a transfer from "slow" until counted down
+    private final CountDownLatch slow = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FabricMetrics metrics = new FabricMetrics();
+        metrics.registry = registry;
+        metrics.init();
+        sequencer.enabled = true;
+        sequencer.stripes = 1024;
+        sequencer.depth = 16;
+        sequencer.queueSize = 100;
+        sequencer.init();
+        FabricComponent fabric = mock(FabricComponent.class);
+        when(fabric.getContract(anyString(), anyString())).thenReturn(contract);
+        batcher.fabric = fabric;
+        batcher.metrics = metrics;
+        batcher.sequencer = sequencer;
+        batcher.registry = registry;
+        batcher.channel = "mychannel";
+        batcher.chaincodeId = "basic";
+        batcher.maxSize = 4;
+        batcher.maxDelayMillis = 1000;
+        batcher.threads = 4;
+        batcher.queueSize = 4;
+        batcher.start();
+
+        // a transfer from "broke" is always rejected by the peers, failing any batch it is in; one from
+        // "unordered" is endorsed but never confirmed as committed
+        when(contract.createTransaction(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            Transaction transaction = mock(Transaction.class);
+            when(transaction.getName()).thenReturn(name);
+            when(transaction.submit(any())).thenAnswer(call -> {
+                List<String> fromIds = new ArrayList<>();
+                if (name.equals("SendBatch")) {
+                    JSONArray legs = new JSONArray(call.<String>getArgument(0));
+                    for (int i = 0; i < legs.length(); i++) {
+                        fromIds.add(legs.getJSONObject(i).getString("from"));
+                    }
+                } else {
+                    fromIds.add(call.getArgument(0));
+                }
+                List<String> record = new ArrayList<>();
+                record.add(name);
+                record.addAll(fromIds);
+                submitted.add(record);
+                if (fromIds.contains("slow") && !fromIds.contains("broke")) {
+                    slow.await();
+                }
+                if (fromIds.contains("broke")) {
+                    throw new ContractException("Insufficient funds in account broke",
+                            Collections.singletonList(mock(ProposalResponse.class)));
+                }
+                if (fromIds.contains("unordered")) {
+                    throw new ContractException("Commit strategy failed");
+                }
+                return new byte[0];
+            });
+            return transaction;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        slow.countDown();
+        batcher.stop();
+    }
+
+    private static Throwable failure(CompletableFuture<Void> result) {
+        Throwable thrown = catchThrowable(() -> result.get(5, TimeUnit.SECONDS));
+        assertThat(thrown).isInstanceOf(ExecutionException.class);
+        return thrown.getCause();
+    }
+
+    @Test
+    void rejectsInvalidTransfersBeforeQueuingThem() {
+        CompletableFuture<Void> zero = batcher.send("a", "b", 0);
+        CompletableFuture<Void> self = batcher.send("a", "a", 1);
+
+        assertThat(failure(zero)).isInstanceOf(IllegalArgumentException.class).hasMessage("Amount must be positive");
+        assertThat(failure(self)).isInstanceOf(IllegalArgumentException.class).hasMessage("Cannot send to the same account");
+        assertThat(registry.get("app.send.batch.queued").gauge().value()).isZero();
+        assertThat(submitted).isEmpty();
+    }
+
+    @Test
+    void submitsConcurrentTransfersAsOneBatch() throws Exception {
+        List<CompletableFuture<Void>> results = Arrays.asList(
+                batcher.send("a", "b", 1), batcher.send("c", "d", 1),
+                batcher.send("e", "f", 1), batcher.send("g", "h", 1));
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertThat(submitted).containsExactly(Arrays.asList("SendBatch", "a", "c", "e", "g"));
+    }
+
+    @Test
+    void failsOnlyTheRejectedTransfer() throws Exception {
+        CompletableFuture<Void> first = batcher.send("a", "b", 1);
+        CompletableFuture<Void> second = batcher.send("c", "d", 1);
+        CompletableFuture<Void> broke = batcher.send("broke", "e", 1);
+        CompletableFuture<Void> last = batcher.send("f", "g", 1);
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        last.get(5, TimeUnit.SECONDS);
+        assertThat(failure(broke)).isInstanceOf(ContractException.class)
+                .hasMessage("Insufficient funds in account broke");
+
+        // halved until the rejected transfer is on its own
+        assertThat(submitted).containsExactlyInAnyOrder(
+                Arrays.asList("SendBatch", "a", "c", "broke", "f"),
+                Arrays.asList("SendBatch", "a", "c"),
+                Arrays.asList("SendBatch", "broke", "f"),
+                Arrays.asList("Send", "broke"),
+                Arrays.asList("Send", "f"));
+        assertThat(submitted.get(0)).containsExactly("SendBatch", "a", "c", "broke", "f");
+    }
+
+    @Test
+    void retriesTheHalvesOfABatchConcurrently() throws Exception {
+        CompletableFuture<Void> held = batcher.send("slow", "b", 1);
+        CompletableFuture<Void> second = batcher.send("c", "d", 1);
+        CompletableFuture<Void> broke = batcher.send("broke", "e", 1);
+        CompletableFuture<Void> last = batcher.send("f", "g", 1);
+
+        // the second half is retried down to single transfers while the first is at the orderer
+        assertThat(failure(broke)).isInstanceOf(ContractException.class);
+        last.get(5, TimeUnit.SECONDS);
+        assertThat(held).isNotDone();
+        assertThat(second).isNotDone();
+
+        slow.countDown();
+        held.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void doesNotRetryABatchThatFailedAfterEndorsement() throws Exception {
+        List<CompletableFuture<Void>> results = Arrays.asList(
+                batcher.send("a", "b", 1), batcher.send("unordered", "d", 1),
+                batcher.send("e", "f", 1), batcher.send("g", "h", 1));
+
+        for (CompletableFuture<Void> result : results) {
+            assertThat(failure(result)).isInstanceOf(ContractException.class).hasMessage("Commit strategy failed");
+        }
+        assertThat(submitted).containsExactly(Arrays.asList("SendBatch", "a", "unordered", "e", "g"));
+    }
+
+    @Test
+    void turnsTransfersAwayWhileTheQueueIsFull() throws Exception {
+        // holds the collector in its first full batch, so the next transfers stay queued
+        CountDownLatch scheduling = new CountDownLatch(1);
+        AccountSequencer stuck = mock(AccountSequencer.class);
+        when(stuck.submit(anyCollection(), any(), any())).thenAnswer(call -> {
+            scheduling.countDown();
+            slow.await();
+            return new CompletableFuture<>();
+        });
+        batcher.sequencer = stuck;
+        for (int i = 0; i < 4; i++) {
+            batcher.send("a" + i, "b", 1);
+        }
+        assertThat(scheduling.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            queued.add(batcher.send("c" + i, "d", 1));
+        }
+        CompletableFuture<Void> turnedAway = batcher.send("e", "f", 1);
+
+        assertThat(failure(turnedAway)).isInstanceOf(RejectedExecutionException.class)
+                .hasMessage("Too many transfers waiting for a batch");
+        assertThat(queued).noneMatch(CompletableFuture::isDone);
+        assertThat(registry.get("app.send.batch.queued").gauge().value()).isEqualTo(4);
+    }
+}
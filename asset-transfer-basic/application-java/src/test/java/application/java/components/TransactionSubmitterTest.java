@@ -0,0 +1,230 @@
+package application.java.components;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.gateway.Transaction;
+import org.hyperledger.fabric.gateway.spi.CommitListener;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.Channel;
+import org.hyperledger.fabric.sdk.Peer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionSubmitterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AccountSequencer sequencer = new AccountSequencer();
+    private final TransactionSubmitter submitter = new TransactionSubmitter();
+    private final Network network = mock(Network.class, RETURNS_DEEP_STUBS);
+    private final Contract contract = mock(Contract.class);
+    private final Peer peer1 = mock(Peer.class);
+    private final Peer peer2 = mock(Peer.class);
+
+    // transaction ID -> its commit listener
+    private final Map<String, CommitListener> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+    // transaction IDs in the order they were sent to the orderer
+    private final List<String> submitted = new CopyOnWriteArrayList<>();
+    private int count;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FabricMetrics metrics = new FabricMetrics();
+        metrics.registry = registry;
+        metrics.init();
+        sequencer.enabled = true;
+        sequencer.stripes = 1024;
+        sequencer.depth = 16;
+        sequencer.queueSize = 10;
+        sequencer.init();
+        submitter.metrics = metrics;
+        submitter.sequencer = sequencer;
+        submitter.registry = registry;
+        // a single thread, which would run one transaction at a time if it waited for commits
+        submitter.threads = 1;
+        submitter.queueSize = 10;
+        submitter.statusMinutes = 10;
+        submitter.commitSeconds = 300;
+        submitter.init();
+
+        Channel channel = mock(Channel.class);
+        when(network.getChannel()).thenReturn(channel);
+        when(network.getGateway().getIdentity().getMspId()).thenReturn("Org1MSP");
+        when(channel.getPeersForOrganization("Org1MSP")).thenReturn(Arrays.asList(peer1, peer2));
+        when(channel.getPeers(any())).thenReturn(Arrays.asList(peer1, peer2));
+        doAnswer(invocation -> listeners.put(invocation.getArgument(2), invocation.getArgument(0)))
+                .when(network).addCommitListener(any(), any(), anyString());
+        doAnswer(invocation -> {
+            listeners.values().remove(invocation.<CommitListener>getArgument(0));
+            return null;
+        }).when(network).removeCommitListener(any());
+        when(contract.createTransaction("Send")).thenAnswer(invocation -> {
+            Transaction transaction = mock(Transaction.class);
+            String id = "tx" + ++count;
+            when(transaction.getName()).thenReturn("Send");
+            when(transaction.getTransactionId()).thenReturn(id);
+            when(transaction.submit(any())).thenAnswer(call -> {
+                submitted.add(id);
+                return new byte[0];
+            });
+            transactions.put(id, transaction);
+            return transaction;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        submitter.close();
+    }
+
+    private String send(String fromId, String toId) {
+        return submitter.submit(network, contract, Arrays.asList(fromId, toId), "Send", fromId, toId, "1");
+    }
+
+    private TransactionStatus.State state(String transactionId) {
+        return submitter.getStatus(transactionId).getState();
+    }
+
+    private void commit(String transactionId, Peer peer, boolean valid, int validationCode) {
+        BlockEvent.TransactionEvent event = mock(BlockEvent.TransactionEvent.class);
+        when(event.getPeer()).thenReturn(peer);
+        when(event.isValid()).thenReturn(valid);
+        when(event.getValidationCode()).thenReturn((byte) validationCode);
+        listeners.get(transactionId).acceptCommit(event);
+    }
+
+    private void commit(String transactionId) {
+        commit(transactionId, peer1, true, 0);
+        commit(transactionId, peer2, true, 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private double failures(String stage) {
+        return registry.counter("app.submit.async.failed", "stage", stage).count();
+    }
+
+    @Test
+    void releasesThePoolThreadBeforeTheCommit() throws Exception {
+        String tx1 = send("a", "b");
+        String tx2 = send("c", "d");
+        String tx3 = send("e", "f");
+
+        // all three reach the orderer on the one thread while none is committed
+        await(() -> submitted.size() == 3);
+        await(() -> state(tx3) == TransactionStatus.State.SUBMITTED);
+        assertThat(state(tx1)).isEqualTo(TransactionStatus.State.SUBMITTED);
+        assertThat(state(tx2)).isEqualTo(TransactionStatus.State.SUBMITTED);
+
+        commit(tx2);
+
+        assertThat(state(tx2)).isEqualTo(TransactionStatus.State.COMMITTED);
+        assertThat(state(tx1)).isEqualTo(TransactionStatus.State.SUBMITTED);
+        assertThat(listeners).containsOnlyKeys(tx1, tx3);
+    }
+
+    @Test
+    void submitsWithoutWaitingForCommitEvents() throws Exception {
+        String tx1 = send("a", "b");
+        await(() -> submitted.size() == 1);
+
+        Transaction transaction = transactions.get(tx1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Peer>> peers = ArgumentCaptor.forClass(Collection.class);
+        InOrder order = inOrder(network, transaction);
+        order.verify(transaction).setCommitHandler(any());
+        // the listener is in place before the orderer can have the transaction
+        order.verify(network).addCommitListener(any(), peers.capture(), eq(tx1));
+        order.verify(transaction).submit("a", "b", "1");
+        assertThat(peers.getValue()).containsExactlyInAnyOrder(peer1, peer2);
+    }
+
+    @Test
+    void waitsForEveryPeerOfTheOrganization() throws Exception {
+        String tx1 = send("a", "b");
+        await(() -> state(tx1) == TransactionStatus.State.SUBMITTED);
+
+        commit(tx1, peer1, true, 0);
+        assertThat(state(tx1)).isEqualTo(TransactionStatus.State.SUBMITTED);
+
+        commit(tx1, peer2, true, 0);
+        assertThat(state(tx1)).isEqualTo(TransactionStatus.State.COMMITTED);
+    }
+
+    @Test
+    void holdsTheAccountsUntilTheCommit() throws Exception {
+        String tx1 = send("a", "b");
+        String tx2 = send("b", "c");
+        await(() -> state(tx1) == TransactionStatus.State.SUBMITTED);
+        Thread.sleep(50);
+        assertThat(submitted).containsExactly(tx1);
+
+        commit(tx1);
+
+        await(() -> submitted.size() == 2);
+        assertThat(submitted).containsExactly(tx1, tx2);
+    }
+
+    @Test
+    void reportsAnEndorsementFailureWithoutBeingAsked() throws Exception {
+        when(contract.createTransaction("Send")).thenAnswer(invocation -> {
+            Transaction transaction = mock(Transaction.class);
+            when(transaction.getName()).thenReturn("Send");
+            when(transaction.getTransactionId()).thenReturn("bad");
+            when(transaction.submit(any())).thenThrow(new ContractException("Account a does not have enough balance"));
+            return transaction;
+        });
+
+        String bad = send("a", "b");
+
+        await(() -> failures("submit") == 1);
+        TransactionStatus status = submitter.getStatus(bad);
+        assertThat(status.getState()).isEqualTo(TransactionStatus.State.FAILED);
+        assertThat(status.getMessage()).isEqualTo("Account a does not have enough balance");
+        assertThat(listeners).isEmpty();
+        verify(network).removeCommitListener(any());
+    }
+
+    @Test
+    void reportsAnInvalidatedTransaction() throws Exception {
+        String tx1 = send("a", "b");
+        await(() -> state(tx1) == TransactionStatus.State.SUBMITTED);
+
+        // MVCC_READ_CONFLICT, reported by the first peer is enough
+        commit(tx1, peer1, false, 11);
+
+        TransactionStatus status = submitter.getStatus(tx1);
+        assertThat(status.getState()).isEqualTo(TransactionStatus.State.FAILED);
+        assertThat(status.getMessage()).isEqualTo("Transaction invalidated: MVCC_READ_CONFLICT");
+        assertThat(failures("commit")).isEqualTo(1);
+        assertThat(listeners).isEmpty();
+    }
+}
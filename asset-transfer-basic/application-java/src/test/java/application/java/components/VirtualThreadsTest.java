@@ -0,0 +1,44 @@
+package application.java.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    void createsNamedVirtualThreadsOnJava21() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable(), "needs Java 21");
+
+        ThreadFactory factory = VirtualThreads.factory("submit-");
+        assertThat(factory.newThread(() -> { }).getName()).isEqualTo("submit-0");
+        assertThat(factory.newThread(() -> { }).getName()).isEqualTo("submit-1");
+
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failsOnOlderJvms() {
+        assumeFalse(VirtualThreads.isAvailable(), "runs before Java 21");
+
+        assertThatThrownBy(VirtualThreads::newPerTaskExecutor)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Virtual threads need Java 21");
+        assertThatThrownBy(() -> VirtualThreads.factory("submit-"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Virtual threads need Java 21");
+    }
+}
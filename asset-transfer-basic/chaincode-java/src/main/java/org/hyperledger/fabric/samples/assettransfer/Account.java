@@ -9,11 +9,19 @@ import java.util.Objects;
 import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 
+import com.owlike.genson.annotation.JsonCreator;
 import com.owlike.genson.annotation.JsonProperty;
 
 @DataType()
 public final class Account {
 
+    /**
+     * Number of decimal places held by a balance; must match the application's decimals setting.
+     */
+    public static final int DECIMALS = 9;
+
+    private static final long UNITS_PER_COIN = 1_000_000_000L;
+
     @Property()
     private final String accountID;
 
@@ -21,14 +29,15 @@ public final class Account {
     @Property()
     private final String publicKey;
 
+    // balance in minor units, i.e. coins * 10^DECIMALS
     @Property()
-    private final double balance;
+    private final long balance;
 
     public String getAccountID() {
         return accountID;
     }
 
-    public double getBalance() {
+    public long getBalance() {
         return balance;
     }
 
@@ -36,14 +45,40 @@ public final class Account {
         return publicKey;
     }
 
-    public Account(@JsonProperty("accountID") final String accountID,
-                   @JsonProperty("balance") final double balance,
-                   @JsonProperty("publicKey") final String publicKey) {
+    public Account(final String accountID, final long balance, final String publicKey) {
         this.accountID = accountID;
         this.balance = balance;
         this.publicKey = publicKey;
     }
 
+    /**
+     * Creates an account from its stored JSON. Accounts written before balances were
+     * kept in minor units hold a fractional balance in coins, which is converted here.
+     */
+    @JsonCreator
+    public static Account fromJSON(@JsonProperty("accountID") final String accountID,
+                                   @JsonProperty("balance") final String balance,
+                                   @JsonProperty("publicKey") final String publicKey) {
+        return new Account(accountID, balance == null ? 0 : parseUnits(balance), publicKey);
+    }
+
+    /**
+     * Converts an amount in coins to minor units, rounding to the nearest unit.
+     */
+    public static long toUnits(final double coins) {
+        return Math.round(coins * UNITS_PER_COIN);
+    }
+
+    /**
+     * Parses an amount in minor units, accepting the fractional coin format used before.
+     */
+    public static long parseUnits(final String value) {
+        if (value.indexOf('.') >= 0 || value.indexOf('E') >= 0 || value.indexOf('e') >= 0) {
+            return toUnits(Double.parseDouble(value));
+        }
+        return Long.parseLong(value);
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (this == obj) {
@@ -60,7 +95,7 @@ public final class Account {
                 &&
                 Objects.equals(getPublicKey(), other.getPublicKey())
                 &&
-                Objects.equals(getBalance(), other.getBalance());
+                getBalance() == other.getBalance();
     }
 
     @Override
@@ -0,0 +1,149 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Fixed-layout binary encoding of Account values.
+ *
+ * <pre>
+ * offset 0   magic byte
+ * offset 1   version
+ * offset 2   balance, 8 byte big-endian long
+ * offset 10  public key format, KEY_TEXT or KEY_BASE64
+ * offset 11  accountID length (unsigned short) followed by the UTF-8 accountID
+ * then       public key length (int) followed by the public key bytes
+ * </pre>
+ *
+ * The balance sits at a fixed offset so it can be read or replaced without
+ * decoding the account ID or the public key.
+ */
+final class AccountCodec {
+
+    static final byte MAGIC = (byte) 0xAC;
+
+    static final byte VERSION = 1;
+
+    private static final int BALANCE_OFFSET = 2;
+
+    private static final int KEY_FORMAT_OFFSET = 10;
+
+    private static final int ID_OFFSET = 11;
+
+    // the public key is stored as given
+    private static final byte KEY_TEXT = 0;
+
+    // the public key is base64 and stored decoded, a third smaller
+    private static final byte KEY_BASE64 = 1;
+
+    private AccountCodec() {
+    }
+
+    /**
+     * Tells whether a stored value uses this encoding rather than JSON.
+     */
+    static boolean isBinary(final byte[] value) {
+        return value != null && value.length > ID_OFFSET && value[0] == MAGIC;
+    }
+
+    static byte[] encode(final Account account) {
+        byte[] id = account.getAccountID().getBytes(UTF_8);
+        if (id.length > 0xFFFF) {
+            throw new IllegalArgumentException("Account ID is too long");
+        }
+        byte keyFormat = KEY_BASE64;
+        byte[] key = decodeBase64(account.getPublicKey());
+        if (key == null) {
+            keyFormat = KEY_TEXT;
+            key = account.getPublicKey() == null ? new byte[0] : account.getPublicKey().getBytes(UTF_8);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(ID_OFFSET + 2 + id.length + 4 + key.length);
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(account.getBalance());
+        buffer.put(keyFormat);
+        buffer.putShort((short) id.length);
+        buffer.put(id);
+        buffer.putInt(key.length);
+        buffer.put(key);
+        return buffer.array();
+    }
+
+    static Account decode(final byte[] value) {
+        checkVersion(value);
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        long balance = buffer.getLong(BALANCE_OFFSET);
+        byte keyFormat = buffer.get(KEY_FORMAT_OFFSET);
+
+        buffer.position(ID_OFFSET);
+        byte[] id = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(id);
+        byte[] key = new byte[buffer.getInt()];
+        buffer.get(key);
+
+        String publicKey = null;
+        if (keyFormat == KEY_BASE64) {
+            publicKey = Base64.getEncoder().encodeToString(key);
+        } else if (key.length > 0) {
+            publicKey = new String(key, UTF_8);
+        }
+        return new Account(new String(id, UTF_8), balance, publicKey);
+    }
+
+    /**
+     * Reads only the balance of an encoded account.
+     */
+    static long readBalance(final byte[] value) {
+        checkVersion(value);
+        return ByteBuffer.wrap(value).getLong(BALANCE_OFFSET);
+    }
+
+    /**
+     * Tells whether an encoded account carries its public key, without decoding it.
+     */
+    static boolean hasPublicKey(final byte[] value) {
+        checkVersion(value);
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        int idLength = buffer.getShort(ID_OFFSET) & 0xFFFF;
+        return buffer.getInt(ID_OFFSET + 2 + idLength) > 0;
+    }
+
+    /**
+     * Copies an encoded account with a new balance, leaving the other bytes untouched.
+     */
+    static byte[] withBalance(final byte[] value, final long balance) {
+        checkVersion(value);
+        byte[] copy = Arrays.copyOf(value, value.length);
+        ByteBuffer.wrap(copy).putLong(BALANCE_OFFSET, balance);
+        return copy;
+    }
+
+    private static void checkVersion(final byte[] value) {
+        if (!isBinary(value) || value[1] != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " binary account");
+        }
+    }
+
+    /**
+     * Returns the decoded bytes if the key is canonical base64, otherwise null.
+     */
+    private static byte[] decodeBase64(final String publicKey) {
+        if (publicKey == null || publicKey.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] decoded = Base64.getDecoder().decode(publicKey);
+            return Base64.getEncoder().encodeToString(decoded).equals(publicKey) ? decoded : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.List;
+
+import com.owlike.genson.annotation.JsonProperty;
+
+/**
+ * One page of accounts returned by GetAccountsWithPagination, together with the
+ * bookmark to pass in to fetch the next page.
+ */
+public final class AccountPage {
+
+    private final List<Account> records;
+
+    private final int fetchedRecordsCount;
+
+    private final String bookmark;
+
+    public List<Account> getRecords() {
+        return records;
+    }
+
+    public int getFetchedRecordsCount() {
+        return fetchedRecordsCount;
+    }
+
+    public String getBookmark() {
+        return bookmark;
+    }
+
+    public AccountPage(@JsonProperty("records") final List<Account> records,
+                       @JsonProperty("fetchedRecordsCount") final int fetchedRecordsCount,
+                       @JsonProperty("bookmark") final String bookmark) {
+        this.records = records;
+        this.fetchedRecordsCount = fetchedRecordsCount;
+        this.bookmark = bookmark;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "@" + Integer.toHexString(hashCode())
+                + " [fetchedRecordsCount=" + fetchedRecordsCount + ", bookmark=" + bookmark + "]";
+    }
+}
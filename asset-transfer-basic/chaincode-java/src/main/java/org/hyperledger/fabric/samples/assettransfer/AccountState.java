@@ -0,0 +1,76 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.owlike.genson.Genson;
+
+/**
+ * An account balance record as read from the ledger, decoded only as far as it is used.
+ * For a binary value the balance is read in place and the public key bytes are
+ * only touched if the whole account is asked for. A JSON value is parsed once.
+ */
+final class AccountState {
+
+    private final Genson genson;
+
+    private final byte[] value;
+
+    private Account account;
+
+    AccountState(final Genson genson, final byte[] value) {
+        this.genson = genson;
+        this.value = value;
+    }
+
+    boolean isBinary() {
+        return AccountCodec.isBinary(value);
+    }
+
+    long getBalance() {
+        if (account == null && isBinary()) {
+            return AccountCodec.readBalance(value);
+        }
+        return toAccount().getBalance();
+    }
+
+    Account toAccount() {
+        if (account == null) {
+            account = isBinary() ? AccountCodec.decode(value) : genson.deserialize(new String(value, UTF_8), Account.class);
+        }
+        return account;
+    }
+
+    /**
+     * Tells whether the public key is still stored in this record, as it was before
+     * public keys got their own key.
+     */
+    boolean hasPublicKey() {
+        if (account == null && isBinary()) {
+            return AccountCodec.hasPublicKey(value);
+        }
+        String publicKey = toAccount().getPublicKey();
+        return publicKey != null && !publicKey.isEmpty();
+    }
+
+    /**
+     * Encodes the balance record with a new balance and without the public key, patching
+     * the balance in place when the value is a binary record already.
+     */
+    byte[] withBalance(final long balance, final boolean binary) {
+        if (binary && isBinary() && !hasPublicKey()) {
+            return AccountCodec.withBalance(value, balance);
+        }
+        return encode(genson, new Account(toAccount().getAccountID(), balance, null), binary);
+    }
+
+    static byte[] encode(final Genson genson, final Account account, final boolean binary) {
+        if (binary) {
+            return AccountCodec.encode(account);
+        }
+        return genson.serialize(account).getBytes(UTF_8);
+    }
+}
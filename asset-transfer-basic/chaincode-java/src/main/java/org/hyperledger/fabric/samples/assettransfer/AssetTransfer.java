@@ -4,8 +4,19 @@
 
 package org.hyperledger.fabric.samples.assettransfer;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
@@ -17,10 +28,13 @@ import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 
 import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
 
 @Contract(
         name = "basic",
@@ -38,12 +52,73 @@ import com.owlike.genson.Genson;
 @Default
 public final class AssetTransfer implements ContractInterface {
 
-    private final Genson genson = new Genson();
+    private static final Logger LOG = Logger.getLogger(AssetTransfer.class.getName());
+
+    /**
+     * Object type of the composite keys holding balance deltas, keyed by accountID~txID~seq.
+     */
+    static final String DELTA_INDEX = "account~delta";
+
+    /**
+     * Object type of the composite keys holding each account's public key. The account's own
+     * key only holds its balance, so transfers do not rewrite the public key.
+     */
+    static final String PUBLIC_KEY_INDEX = "account~publicKey";
+
+    /**
+     * Name of the chaincode event set by CreateAccount and CreateAccounts. Its payload is a JSON
+     * object mapping each created account ID to its balance, so clients caching public keys can
+     * drop stale ones.
+     */
+    static final String ACCOUNTS_CREATED_EVENT = "AccountsCreated";
+
+    /**
+     * Name of the chaincode event set by Send, SendBatch and CompactAccount, with a JSON object
+     * mapping each updated account ID to its new balance, for clients caching balances.
+     */
+    static final String BALANCES_CHANGED_EVENT = "BalancesChanged";
+
+    /**
+     * Name of the chaincode event set by SendDelta, with the JSON array of the account IDs whose
+     * balance changed. SendDelta does not read the balances it changes, so it cannot report them.
+     */
+    static final String BALANCES_INVALIDATED_EVENT = "BalancesInvalidated";
+
+    private final Genson genson = new GensonBuilder().setSkipNull(true).create();
+
+    // Set ACCOUNT_ENCODING=binary in the chaincode environment to write accounts with AccountCodec
+    // instead of JSON. Both formats are always readable. All endorsing peers must use the same
+    // setting, otherwise their write sets will not match.
+    private final boolean binaryAccounts;
 
     private enum AssetTransferErrors {
         ACCOUNT_NOT_FOUND,
         ASSET_ALREADY_EXISTS,
-        NOT_ENOUGH_BALANCE
+        NOT_ENOUGH_BALANCE,
+        INVALID_ARGUMENT
+    }
+
+    public AssetTransfer() {
+        this("binary".equalsIgnoreCase(System.getenv("ACCOUNT_ENCODING")));
+    }
+
+    /**
+     * @param binaryAccounts whether to write accounts with AccountCodec rather than JSON
+     */
+    AssetTransfer(final boolean binaryAccounts) {
+        this.binaryAccounts = binaryAccounts;
+    }
+
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new CachingContext(stub);
+    }
+
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        if (ctx instanceof CachingContext) {
+            ((CachingContext) ctx).flush();
+        }
     }
 
     /**
@@ -56,29 +131,94 @@ public final class AssetTransfer implements ContractInterface {
 
 
     /**
-     * Create account with initial balance
+     * Create account with initial balance, given in minor units
      * @param ctx
      * @param accountID
      * @param balance
      * @return
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Account CreateAccount(final Context ctx, final String accountID, final double balance, final String publicKey) {
+    public Account CreateAccount(final Context ctx, final String accountID, final long balance, final String publicKey) {
         ChaincodeStub stub = ctx.getStub();
 
+        if (publicKey == null || publicKey.isEmpty()) {
+            String errorMessage = String.format("Account %s has no public key", accountID);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
         if (AccountExists(ctx, accountID)) {
             String errorMessage = String.format("Account %s already exists", accountID);
-            System.out.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
         Account account = new Account(accountID, balance, publicKey);
-        String assetJSON = genson.serialize(account);
-        stub.putStringState(accountID, assetJSON);
+        putNewAccount(stub, account);
+        setEvent(stub, ACCOUNTS_CREATED_EVENT, Collections.singletonMap(accountID, balance));
 
         return account;
     }
 
+    /**
+     * Creates several accounts in one transaction. Every account is checked before anything
+     * is written, and the transaction fails listing all IDs that already exist.
+     *
+     * @param ctx the transaction context
+     * @param accountsJSON JSON array of accounts, e.g. [{"accountID":"a","balance":0,"publicKey":"..."}]
+     * @return the number of accounts created
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public int CreateAccounts(final Context ctx, final String accountsJSON) {
+        ChaincodeStub stub = ctx.getStub();
+
+        Account[] accounts = genson.deserialize(accountsJSON, Account[].class);
+        if (accounts == null || accounts.length == 0) {
+            throw new ChaincodeException("No accounts to create", AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        Set<String> seen = new HashSet<>();
+        List<String> existing = new ArrayList<>();
+        for (Account account : accounts) {
+            if (account == null || account.getAccountID() == null || account.getAccountID().isEmpty()) {
+                throw new ChaincodeException("Account without an ID", AssetTransferErrors.INVALID_ARGUMENT.toString());
+            }
+            if (account.getPublicKey() == null || account.getPublicKey().isEmpty()) {
+                String errorMessage = String.format("Account %s has no public key", account.getAccountID());
+                throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ARGUMENT.toString());
+            }
+            if (!seen.add(account.getAccountID()) || AccountExists(ctx, account.getAccountID())) {
+                existing.add(account.getAccountID());
+            }
+        }
+        if (!existing.isEmpty()) {
+            String errorMessage = String.format("Accounts %s already exist", existing);
+            LOG.warning(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
+        }
+
+        Map<String, Long> created = new LinkedHashMap<>();
+        for (Account account : accounts) {
+            putNewAccount(stub, account);
+            created.put(account.getAccountID(), account.getBalance());
+        }
+        setEvent(stub, ACCOUNTS_CREATED_EVENT, created);
+
+        return accounts.length;
+    }
+
+    /**
+     * Sets the transaction's chaincode event. A transaction carries at most one event, so each
+     * function sets one, summarizing all the accounts it changed.
+     */
+    private void setEvent(final ChaincodeStub stub, final String name, final Object payload) {
+        stub.setEvent(name, genson.serialize(payload).getBytes(UTF_8));
+    }
+
+    private void putNewAccount(final ChaincodeStub stub, final Account account) {
+        String accountID = account.getAccountID();
+        stub.putState(accountID, AccountState.encode(genson, new Account(accountID, account.getBalance(), null), binaryAccounts));
+        stub.putStringState(publicKeyKey(stub, accountID), account.getPublicKey());
+    }
+
     /**
      * Retrieves an asset with the specified ID from the ledger.
      *
@@ -98,44 +238,269 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean AccountExists(final Context ctx, final String accountID) {
         ChaincodeStub stub = ctx.getStub();
-        String assetJSON = stub.getStringState(accountID);
+        byte[] state = stub.getState(accountID);
 
-        return (assetJSON != null && !assetJSON.isEmpty());
+        return (state != null && state.length > 0);
     }
 
     private Account getAccountByID(final ChaincodeStub stub, final String accountID) throws ChaincodeException {
-        String accountJSON = stub.getStringState(accountID);
+        return withDeltas(stub, withPublicKey(stub, getAccountState(stub, accountID).toAccount()));
+    }
+
+    private String publicKeyKey(final ChaincodeStub stub, final String accountID) {
+        return stub.createCompositeKey(PUBLIC_KEY_INDEX, accountID).toString();
+    }
 
-        if (accountJSON == null || accountJSON.isEmpty()) {
+    /**
+     * Fills in the public key of a balance record from its own key.
+     */
+    private Account withPublicKey(final ChaincodeStub stub, final Account account) {
+        if (account.getPublicKey() != null && !account.getPublicKey().isEmpty()) {
+            // written before the public key was split out
+            return account;
+        }
+        String publicKey = stub.getStringState(publicKeyKey(stub, account.getAccountID()));
+        return new Account(account.getAccountID(), account.getBalance(), publicKey);
+    }
+
+    private AccountState getAccountState(final ChaincodeStub stub, final String accountID) throws ChaincodeException {
+        byte[] state = stub.getState(accountID);
+
+        if (state == null || state.length == 0) {
             String errorMessage = String.format("Account %s does not exist", accountID);
-            System.out.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ACCOUNT_NOT_FOUND.toString());
         }
-        return genson.deserialize(accountJSON, Account.class);
+        return new AccountState(genson, state);
+    }
+
+    /**
+     * Adds the pending balance deltas of an account to the balance stored under its own key.
+     */
+    private Account withDeltas(final ChaincodeStub stub, final Account account) {
+        long delta = foldDeltas(stub, account.getAccountID(), null);
+        if (delta == 0) {
+            return account;
+        }
+        return new Account(account.getAccountID(), account.getBalance() + delta, account.getPublicKey());
+    }
+
+    /**
+     * Sums the delta records of an account, collecting their keys into deltaKeys unless it is null,
+     * for putAccount to delete.
+     */
+    private long foldDeltas(final ChaincodeStub stub, final String accountID, final List<String> deltaKeys) {
+        long total = 0;
+        try (QueryResultsIterator<KeyValue> deltas = stub.getStateByPartialCompositeKey(DELTA_INDEX, accountID)) {
+            for (KeyValue delta : deltas) {
+                total += Account.parseUnits(delta.getStringValue());
+                if (deltaKeys != null) {
+                    deltaKeys.add(delta.getKey());
+                }
+            }
+        } catch (Exception e) {
+            throw new ChaincodeException(e);
+        }
+        return total;
+    }
+
+    /**
+     * Writes a new balance for the account under its own key. The balance must already include
+     * the pending deltas, whose keys foldDeltas collected, and which are removed so they are not
+     * counted twice.
+     */
+    private void putAccount(final ChaincodeStub stub, final String accountID, final AccountState state, final long balance,
+                            final List<String> deltaKeys) {
+        for (String deltaKey : deltaKeys) {
+            stub.delState(deltaKey);
+        }
+        if (state.hasPublicKey()) {
+            // first rewrite of an account stored with its public key, move the key out
+            stub.putStringState(publicKeyKey(stub, accountID), state.toAccount().getPublicKey());
+        }
+        stub.putState(accountID, state.withBalance(balance, binaryAccounts));
+    }
+
+    /**
+     * Records a balance change as a new delta key without reading or writing the account key.
+     */
+    private void putDelta(final ChaincodeStub stub, final String accountID, final int seq, final long amount) {
+        CompositeKey key = stub.createCompositeKey(DELTA_INDEX, accountID, stub.getTxId(), Integer.toString(seq));
+        stub.putStringState(key.toString(), Long.toString(amount));
     }
 
+    /**
+     * Transfers an amount between two accounts, rewriting both.
+     *
+     * @param ctx the transaction context
+     * @param fromID the account to debit
+     * @param toID the account to credit, must differ from fromID
+     * @param amount the amount to transfer, in minor units
+     */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public void Send(final Context ctx, final String fromID, final String toID, final double amount) {
+    public void Send(final Context ctx, final String fromID, final String toID, final long amount) {
         ChaincodeStub stub = ctx.getStub();
 
-        Account from = getAccountByID(stub, fromID);
-        Account to = getAccountByID(stub, toID);
+        if (amount <= 0) {
+            throw new ChaincodeException("Amount must be positive", AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+        // both writes go to the same key, the second would overwrite the debit
+        if (fromID.equals(toID)) {
+            throw new ChaincodeException("Cannot send to the same account", AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        AccountState from = getAccountState(stub, fromID);
+        AccountState to = getAccountState(stub, toID);
+        List<String> fromDeltas = new ArrayList<>();
+        List<String> toDeltas = new ArrayList<>();
+        long fromBalance = from.getBalance() + foldDeltas(stub, fromID, fromDeltas);
+        long toBalance = to.getBalance() + foldDeltas(stub, toID, toDeltas);
         // check balance
-        if (from.getBalance() < amount) {
+        if (fromBalance < amount) {
+            String errMsg = String.format("Account %s does not have enough blanace to make the transaction", fromID);
+            throw new ChaincodeException(errMsg, AssetTransferErrors.NOT_ENOUGH_BALANCE.toString());
+        }
+
+        putAccount(stub, fromID, from, fromBalance - amount, fromDeltas);
+        putAccount(stub, toID, to, toBalance + amount, toDeltas);
+
+        Map<String, Long> balances = new LinkedHashMap<>();
+        balances.put(fromID, fromBalance - amount);
+        balances.put(toID, toBalance + amount);
+        setEvent(stub, BALANCES_CHANGED_EVENT, balances);
+    }
+
+    /**
+     * Transfers an amount using delta records instead of rewriting the accounts.
+     * Only the sender's balance is read, so concurrent credits to a busy receiving
+     * account no longer invalidate each other. Use CompactAccount to fold the deltas
+     * back into the account.
+     *
+     * @param ctx the transaction context
+     * @param fromID the account to debit
+     * @param toID the account to credit
+     * @param amount the amount to transfer, in minor units
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public void SendDelta(final Context ctx, final String fromID, final String toID, final long amount) {
+        ChaincodeStub stub = ctx.getStub();
+
+        if (amount <= 0) {
+            throw new ChaincodeException("Amount must be positive", AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        long fromBalance = getAccountState(stub, fromID).getBalance() + foldDeltas(stub, fromID, null);
+        if (!AccountExists(ctx, toID)) {
+            String errorMessage = String.format("Account %s does not exist", toID);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.ACCOUNT_NOT_FOUND.toString());
+        }
+        if (fromBalance < amount) {
             String errMsg = String.format("Account %s does not have enough blanace to make the transaction", fromID);
             throw new ChaincodeException(errMsg, AssetTransferErrors.NOT_ENOUGH_BALANCE.toString());
         }
 
-        Account newFrom = new Account(fromID, from.getBalance() - amount, from.getPublicKey());
-        Account newTo = new Account(toID, to.getBalance() + amount, to.getPublicKey());
-        String newFromJson = genson.serialize(newFrom);
-        String newToJson = genson.serialize(newTo);
-        stub.putStringState(fromID, newFromJson);
-        stub.putStringState(toID, newToJson);
+        putDelta(stub, fromID, 0, -amount);
+        putDelta(stub, toID, 1, amount);
+        setEvent(stub, BALANCES_INVALIDATED_EVENT, Arrays.asList(fromID, toID));
+    }
+
+    /**
+     * Folds the pending delta records of an account into its stored balance.
+     * Should be run periodically, ideally while the account is not busy.
+     *
+     * @param ctx the transaction context
+     * @param accountID the account to compact
+     * @return the compacted account
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public Account CompactAccount(final Context ctx, final String accountID) {
+        ChaincodeStub stub = ctx.getStub();
+
+        AccountState state = getAccountState(stub, accountID);
+        List<String> deltaKeys = new ArrayList<>();
+        long balance = state.getBalance() + foldDeltas(stub, accountID, deltaKeys);
+        Account account = new Account(accountID, balance, withPublicKey(stub, state.toAccount()).getPublicKey());
+        putAccount(stub, accountID, state, balance, deltaKeys);
+        setEvent(stub, BALANCES_CHANGED_EVENT, Collections.singletonMap(accountID, account.getBalance()));
+
+        return account;
     }
 
     /**
-     * Retrieves all assets from the ledger.
+     * Applies several transfers in one transaction. Legs are applied in order against
+     * the running balances, each touched account is read once and written once.
+     *
+     * @param ctx the transaction context
+     * @param legsJSON JSON array of legs, amounts in minor units, e.g. [{"from":"a","to":"b","amount":1500000000}]
+     * @return the number of distinct accounts updated
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public int SendBatch(final Context ctx, final String legsJSON) {
+        ChaincodeStub stub = ctx.getStub();
+
+        TransferLeg[] legs = genson.deserialize(legsJSON, TransferLeg[].class);
+        if (legs == null || legs.length == 0) {
+            throw new ChaincodeException("Batch contains no transfers", AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        // accountID -> account as stored on the ledger, in first-touched order
+        Map<String, AccountState> states = new LinkedHashMap<>();
+        // accountID -> {balance as read, netted balance after the legs applied so far}
+        Map<String, long[]> balances = new LinkedHashMap<>();
+        // accountID -> keys of the delta records folded into its balance
+        Map<String, List<String>> deltaKeys = new HashMap<>();
+
+        for (int i = 0; i < legs.length; i++) {
+            TransferLeg leg = legs[i];
+            if (leg == null || leg.getAmount() <= 0) {
+                String errMsg = String.format("Transfer %d in batch has an invalid amount", i);
+                throw new ChaincodeException(errMsg, AssetTransferErrors.INVALID_ARGUMENT.toString());
+            }
+
+            long[] fromBalance = loadBalance(stub, states, balances, deltaKeys, leg.getFrom());
+            long[] toBalance = loadBalance(stub, states, balances, deltaKeys, leg.getTo());
+            if (fromBalance[1] < leg.getAmount()) {
+                String errMsg = String.format("Account %s does not have enough blanace to make the transaction", leg.getFrom());
+                throw new ChaincodeException(errMsg, AssetTransferErrors.NOT_ENOUGH_BALANCE.toString());
+            }
+
+            fromBalance[1] -= leg.getAmount();
+            toBalance[1] += leg.getAmount();
+        }
+
+        Map<String, Long> updated = new LinkedHashMap<>();
+        for (Map.Entry<String, AccountState> entry : states.entrySet()) {
+            long[] balance = balances.get(entry.getKey());
+            if (balance[0] == balance[1]) {
+                continue;
+            }
+            putAccount(stub, entry.getKey(), entry.getValue(), balance[1], deltaKeys.get(entry.getKey()));
+            updated.put(entry.getKey(), balance[1]);
+        }
+        setEvent(stub, BALANCES_CHANGED_EVENT, updated);
+
+        return updated.size();
+    }
+
+    private long[] loadBalance(final ChaincodeStub stub, final Map<String, AccountState> states,
+                               final Map<String, long[]> balances, final Map<String, List<String>> deltaKeys,
+                               final String accountID) {
+        long[] balance = balances.get(accountID);
+        if (balance == null) {
+            AccountState state = getAccountState(stub, accountID);
+            states.put(accountID, state);
+            List<String> keys = new ArrayList<>();
+            deltaKeys.put(accountID, keys);
+            long current = state.getBalance() + foldDeltas(stub, accountID, keys);
+            balance = new long[] {current, current};
+            balances.put(accountID, balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Retrieves all assets from the ledger. The public keys and the deltas of all accounts are
+     * read with one scan each, rather than with two reads per account.
      *
      * @param ctx the transaction context
      * @return array of assets found on the ledger
@@ -145,21 +510,86 @@ public final class AssetTransfer implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
 
         List<Account> queryResults = new ArrayList<>();
+        Map<String, String> publicKeys = new HashMap<>();
+        Map<String, Long> deltas = new HashMap<>();
+
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(stub.createCompositeKey(PUBLIC_KEY_INDEX))) {
+            for (KeyValue result: results) {
+                publicKeys.put(stub.splitCompositeKey(result.getKey()).getAttributes().get(0), result.getStringValue());
+            }
+        } catch (Exception e) {
+            throw new ChaincodeException(e);
+        }
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(stub.createCompositeKey(DELTA_INDEX))) {
+            for (KeyValue result: results) {
+                deltas.merge(stub.splitCompositeKey(result.getKey()).getAttributes().get(0), Account.parseUnits(result.getStringValue()), Long::sum);
+            }
+        } catch (Exception e) {
+            throw new ChaincodeException(e);
+        }
 
         // To retrieve all assets from the ledger use getStateByRange with empty startKey & endKey.
         // Giving empty startKey & endKey is interpreted as all the keys from beginning to end.
         // As another example, if you use startKey = 'asset0', endKey = 'asset9' ,
         // then getStateByRange will retrieve asset with keys between asset0 (inclusive) and asset9 (exclusive) in lexical order.
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
-
-        for (KeyValue result: results) {
-            Account account = genson.deserialize(result.getStringValue(), Account.class);
-            queryResults.add(account);
-            System.out.println(account.toString());
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "")) {
+            for (KeyValue result: results) {
+                Account account = new AccountState(genson, result.getValue()).toAccount();
+                String publicKey = account.getPublicKey();
+                if (publicKey == null || publicKey.isEmpty()) {
+                    publicKey = publicKeys.get(account.getAccountID());
+                }
+                long balance = account.getBalance() + deltas.getOrDefault(account.getAccountID(), 0L);
+                queryResults.add(new Account(account.getAccountID(), balance, publicKey));
+            }
+        } catch (Exception e) {
+            throw new ChaincodeException(e);
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("GetAllAccounts: %d accounts", queryResults.size()));
         }
 
         final String response = genson.serialize(queryResults);
 
         return response;
     }
+
+    /**
+     * Retrieves one page of accounts from the ledger. Pass an empty bookmark to
+     * start from the first account, then the returned bookmark for each following
+     * page until fewer than pageSize records come back.
+     *
+     * A page holds the balances as stored under the account keys, so it costs the one
+     * range read: public keys are left out, and so are deltas from SendDelta that
+     * CompactAccount has not folded in yet. ReadAccount and GetAllAccounts include both.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of accounts to return
+     * @param bookmark the bookmark returned with the previous page
+     * @return the page of accounts with its record count and bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAccountsWithPagination(final Context ctx, final int pageSize, final String bookmark) {
+        ChaincodeStub stub = ctx.getStub();
+
+        if (pageSize <= 0) {
+            throw new ChaincodeException("Page size must be positive", AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        List<Account> records = new ArrayList<>(pageSize);
+        AccountPage page;
+        try (QueryResultsIteratorWithMetadata<KeyValue> results =
+                     stub.getStateByRangeWithPagination("", "", pageSize, bookmark)) {
+            for (KeyValue result: results) {
+                Account account = new AccountState(genson, result.getValue()).toAccount();
+                records.add(new Account(account.getAccountID(), account.getBalance(), null));
+            }
+            page = new AccountPage(records, results.getMetadata().getFetchedRecordsCount(),
+                    results.getMetadata().getBookmark());
+        } catch (Exception e) {
+            throw new ChaincodeException(e);
+        }
+
+        return genson.serialize(page);
+    }
 }
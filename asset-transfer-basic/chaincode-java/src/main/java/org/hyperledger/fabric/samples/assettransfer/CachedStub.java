@@ -0,0 +1,110 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Per-transaction cache in front of a ChaincodeStub. Each key is fetched from the peer
+ * at most once, and writes are held back until {@link #flush()} so that several puts
+ * to the same key cost a single call.
+ *
+ * Reads keep the peer's semantics: a key written earlier in the transaction still
+ * reads as its committed value. Only the world state calls the contract makes are
+ * cached; range, composite key and history queries go to the peer as before.
+ *
+ * The stub is wrapped in a dynamic proxy, so every method not handled here, including
+ * ones added by later shim versions, is passed straight through.
+ */
+final class CachedStub implements InvocationHandler {
+
+    private final ChaincodeStub stub;
+
+    private final ChaincodeStub proxy;
+
+    private final Map<String, byte[]> reads = new HashMap<>();
+
+    // a null value is a pending delete
+    private final Map<String, byte[]> writes = new LinkedHashMap<>();
+
+    CachedStub(final ChaincodeStub stub) {
+        this.stub = stub;
+        this.proxy = (ChaincodeStub) Proxy.newProxyInstance(ChaincodeStub.class.getClassLoader(),
+                new Class<?>[] {ChaincodeStub.class}, this);
+    }
+
+    /**
+     * The caching view of the stub, to hand to the transaction functions.
+     */
+    ChaincodeStub getStub() {
+        return proxy;
+    }
+
+    /**
+     * Sends the pending writes to the peer, one call per key.
+     */
+    void flush() {
+        for (Map.Entry<String, byte[]> write : writes.entrySet()) {
+            if (write.getValue() == null) {
+                stub.delState(write.getKey());
+            } else {
+                stub.putState(write.getKey(), write.getValue());
+            }
+        }
+        writes.clear();
+    }
+
+    @Override
+    public Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getState":
+                return read((String) args[0]);
+            case "getStringState":
+                byte[] value = read((String) args[0]);
+                return value == null ? null : new String(value, UTF_8);
+            case "putState":
+                writes.put((String) args[0], (byte[]) args[1]);
+                return null;
+            case "putStringState":
+                writes.put((String) args[0], ((String) args[1]).getBytes(UTF_8));
+                return null;
+            case "delState":
+                writes.put((String) args[0], null);
+                return null;
+            case "equals":
+                return target == args[0];
+            case "hashCode":
+                return System.identityHashCode(target);
+            case "toString":
+                return "CachedStub[" + stub + "]";
+            default:
+                try {
+                    return method.invoke(stub, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+        }
+    }
+
+    private byte[] read(final String key) {
+        // a missing key may read as null, which is cached like any other value
+        if (reads.containsKey(key)) {
+            return reads.get(key);
+        }
+        byte[] value = stub.getState(key);
+        reads.put(key, value);
+        return value;
+    }
+}
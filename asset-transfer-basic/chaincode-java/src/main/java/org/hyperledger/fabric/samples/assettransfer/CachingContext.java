@@ -0,0 +1,30 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Transaction context whose stub is a {@link CachedStub}. The contract flushes it
+ * from afterTransaction, once the transaction function has returned.
+ */
+final class CachingContext extends Context {
+
+    private final CachedStub cache;
+
+    CachingContext(final ChaincodeStub stub) {
+        this(new CachedStub(stub));
+    }
+
+    private CachingContext(final CachedStub cache) {
+        super(cache.getStub());
+        this.cache = cache;
+    }
+
+    void flush() {
+        cache.flush();
+    }
+}
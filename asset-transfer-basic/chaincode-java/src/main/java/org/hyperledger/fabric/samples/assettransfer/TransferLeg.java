@@ -0,0 +1,78 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Objects;
+
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import com.owlike.genson.annotation.JsonProperty;
+
+/**
+ * A single (from, to, amount) movement inside a SendBatch transaction.
+ */
+@DataType()
+public final class TransferLeg {
+
+    @Property()
+    private final String from;
+
+    @Property()
+    private final String to;
+
+    @Property()
+    private final long amount;
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public TransferLeg(@JsonProperty("from") final String from,
+                       @JsonProperty("to") final String to,
+                       @JsonProperty("amount") final long amount) {
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        TransferLeg other = (TransferLeg) obj;
+
+        return Objects.equals(getFrom(), other.getFrom())
+                &&
+                Objects.equals(getTo(), other.getTo())
+                &&
+                getAmount() == other.getAmount();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getFrom(), getTo(), getAmount());
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "@" + Integer.toHexString(hashCode())
+                + " [from=" + from + ", to=" + to + ", amount=" + amount + "]";
+    }
+}
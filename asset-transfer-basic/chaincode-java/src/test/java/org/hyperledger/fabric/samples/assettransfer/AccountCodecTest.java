@@ -0,0 +1,157 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class AccountCodecTest {
+
+    private static final String PUBLIC_KEY = "MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAE";
+
+    private static final byte[] JSON = "{\"accountID\":\"a1\",\"balance\":5}".getBytes(UTF_8);
+
+    @Nested
+    class RoundTrip {
+
+        @Test
+        public void withABase64PublicKey() {
+            Account account = new Account("a1", 1_500_000_000L, PUBLIC_KEY);
+
+            byte[] value = AccountCodec.encode(account);
+
+            assertThat(AccountCodec.decode(value)).isEqualTo(account);
+            // the key is stored decoded
+            assertThat(value.length).isEqualTo(11 + 2 + 2 + 4 + Base64.getDecoder().decode(PUBLIC_KEY).length);
+        }
+
+        @Test
+        public void withAPublicKeyThatIsNotCanonicalBase64() {
+            for (String publicKey : new String[] {"YQ", "not base64!", "-----BEGIN PUBLIC KEY-----"}) {
+                Account account = new Account("a1", 5, publicKey);
+
+                assertThat(AccountCodec.decode(AccountCodec.encode(account))).isEqualTo(account);
+            }
+        }
+
+        @Test
+        public void withoutAPublicKey() {
+            assertThat(AccountCodec.decode(AccountCodec.encode(new Account("a1", 5, null))))
+                    .isEqualTo(new Account("a1", 5, null));
+            assertThat(AccountCodec.decode(AccountCodec.encode(new Account("a1", 5, ""))))
+                    .isEqualTo(new Account("a1", 5, null));
+        }
+
+        @Test
+        public void withAnyBalance() {
+            for (long balance : new long[] {0, -1, Long.MAX_VALUE, Long.MIN_VALUE}) {
+                Account account = new Account("a1", balance, PUBLIC_KEY);
+
+                assertThat(AccountCodec.decode(AccountCodec.encode(account))).isEqualTo(account);
+            }
+        }
+
+        @Test
+        public void withAUnicodeAccountID() {
+            Account account = new Account("\u00e9t\u00e9-\u8d26\u6237", 5, PUBLIC_KEY);
+
+            assertThat(AccountCodec.decode(AccountCodec.encode(account))).isEqualTo(account);
+        }
+
+        @Test
+        public void rejectsAnAccountIDTooLongForItsLength() {
+            char[] id = new char[0x10000];
+            Arrays.fill(id, 'a');
+
+            Throwable thrown = catchThrowable(() -> AccountCodec.encode(new Account(new String(id), 5, null)));
+
+            assertThat(thrown).isInstanceOf(IllegalArgumentException.class).hasMessage("Account ID is too long");
+        }
+    }
+
+    @Nested
+    class Layout {
+
+        @Test
+        public void startsWithMagicAndVersion() {
+            byte[] value = AccountCodec.encode(new Account("a1", 5, PUBLIC_KEY));
+
+            assertThat(value[0]).isEqualTo(AccountCodec.MAGIC);
+            assertThat(value[1]).isEqualTo(AccountCodec.VERSION);
+        }
+
+        @Test
+        public void holdsTheBalanceBigEndianAtOffsetTwo() {
+            byte[] value = AccountCodec.encode(new Account("a1", 0x0102030405060708L, PUBLIC_KEY));
+
+            assertThat(Arrays.copyOfRange(value, 2, 10)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+            assertThat(AccountCodec.readBalance(value)).isEqualTo(0x0102030405060708L);
+        }
+
+        @Test
+        public void patchesTheBalanceInPlace() {
+            byte[] value = AccountCodec.encode(new Account("a1", 5, PUBLIC_KEY));
+            byte[] original = value.clone();
+
+            byte[] patched = AccountCodec.withBalance(value, -42);
+
+            assertThat(value).isEqualTo(original);
+            assertThat(patched).hasSameSizeAs(value);
+            assertThat(Arrays.copyOfRange(patched, 2, 10)).isEqualTo(ByteBuffer.allocate(8).putLong(-42).array());
+            assertThat(Arrays.copyOfRange(patched, 0, 2)).isEqualTo(Arrays.copyOfRange(value, 0, 2));
+            assertThat(Arrays.copyOfRange(patched, 10, patched.length)).isEqualTo(Arrays.copyOfRange(value, 10, value.length));
+            assertThat(AccountCodec.decode(patched)).isEqualTo(new Account("a1", -42, PUBLIC_KEY));
+        }
+
+        @Test
+        public void tellsWhetherThePublicKeyIsStored() {
+            assertThat(AccountCodec.hasPublicKey(AccountCodec.encode(new Account("a1", 5, PUBLIC_KEY)))).isTrue();
+            assertThat(AccountCodec.hasPublicKey(AccountCodec.encode(new Account("a1", 5, "text key")))).isTrue();
+            assertThat(AccountCodec.hasPublicKey(AccountCodec.encode(new Account("a1", 5, null)))).isFalse();
+        }
+    }
+
+    @Nested
+    class VersionCheck {
+
+        @Test
+        public void recognisesOnlyBinaryValues() {
+            assertThat(AccountCodec.isBinary(AccountCodec.encode(new Account("a1", 5, null)))).isTrue();
+            assertThat(AccountCodec.isBinary(JSON)).isFalse();
+            assertThat(AccountCodec.isBinary(new byte[] {AccountCodec.MAGIC, AccountCodec.VERSION})).isFalse();
+            assertThat(AccountCodec.isBinary(new byte[0])).isFalse();
+            assertThat(AccountCodec.isBinary(null)).isFalse();
+        }
+
+        @Test
+        public void rejectsJson() {
+            assertRejected(JSON);
+        }
+
+        @Test
+        public void rejectsAnotherVersion() {
+            byte[] value = AccountCodec.encode(new Account("a1", 5, PUBLIC_KEY));
+            value[1] = AccountCodec.VERSION + 1;
+
+            assertRejected(value);
+        }
+
+        private void assertRejected(final byte[] value) {
+            assertThat(catchThrowable(() -> AccountCodec.decode(value)))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Not a version 1 binary account");
+            assertThat(catchThrowable(() -> AccountCodec.readBalance(value))).isInstanceOf(IllegalArgumentException.class);
+            assertThat(catchThrowable(() -> AccountCodec.hasPublicKey(value))).isInstanceOf(IllegalArgumentException.class);
+            assertThat(catchThrowable(() -> AccountCodec.withBalance(value, 1))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+
+public final class AccountStateTest {
+
+    private static final String PUBLIC_KEY = "MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAE";
+
+    private final Genson genson = new GensonBuilder().setSkipNull(true).create();
+
+    private AccountState state(final Account account, final boolean binary) {
+        return new AccountState(genson, AccountState.encode(genson, account, binary));
+    }
+
+    @Test
+    public void readsBothEncodings() {
+        Account account = new Account("a1", 5, PUBLIC_KEY);
+
+        for (boolean binary : new boolean[] {true, false}) {
+            AccountState state = state(account, binary);
+
+            assertThat(state.isBinary()).isEqualTo(binary);
+            assertThat(state.getBalance()).isEqualTo(5);
+            assertThat(state.hasPublicKey()).isTrue();
+            assertThat(state.toAccount()).isEqualTo(account);
+            // still answered from the decoded account
+            assertThat(state.getBalance()).isEqualTo(5);
+            assertThat(state.hasPublicKey()).isTrue();
+        }
+    }
+
+    @Test
+    public void tellsWhetherThePublicKeyIsStored() {
+        assertThat(state(new Account("a1", 5, null), true).hasPublicKey()).isFalse();
+        assertThat(state(new Account("a1", 5, null), false).hasPublicKey()).isFalse();
+        assertThat(new AccountState(genson, "{\"accountID\":\"a1\",\"balance\":5,\"publicKey\":\"\"}".getBytes(UTF_8))
+                .hasPublicKey()).isFalse();
+    }
+
+    @Test
+    public void patchesABinaryBalanceRecordInPlace() {
+        byte[] value = AccountCodec.encode(new Account("a1", 5, null));
+
+        byte[] updated = new AccountState(genson, value).withBalance(9, true);
+
+        assertThat(updated).isEqualTo(AccountCodec.withBalance(value, 9));
+    }
+
+    @Test
+    public void dropsThePublicKeyWhenRewriting() {
+        for (boolean from : new boolean[] {true, false}) {
+            for (boolean to : new boolean[] {true, false}) {
+                byte[] updated = state(new Account("a1", 5, PUBLIC_KEY), from).withBalance(9, to);
+
+                assertThat(new AccountState(genson, updated).toAccount()).isEqualTo(new Account("a1", 9, null));
+                assertThat(AccountCodec.isBinary(updated)).isEqualTo(to);
+            }
+        }
+    }
+
+    @Test
+    public void rewritesInTheConfiguredEncoding() {
+        // ACCOUNT_ENCODING changed from binary to JSON
+        byte[] json = state(new Account("a1", 5, null), true).withBalance(9, false);
+        assertThat(new String(json, UTF_8)).isEqualTo("{\"accountID\":\"a1\",\"balance\":9}");
+
+        // and from JSON to binary
+        byte[] binary = state(new Account("a1", 5, null), false).withBalance(9, true);
+        assertThat(binary).isEqualTo(AccountCodec.encode(new Account("a1", 9, null)));
+    }
+}
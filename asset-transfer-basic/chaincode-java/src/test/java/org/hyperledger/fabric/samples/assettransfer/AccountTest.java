@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+
+public final class AccountTest {
+
+    private final Genson genson = new GensonBuilder().setSkipNull(true).create();
+
+    @Nested
+    class ParseUnits {
+
+        @Test
+        public void readsMinorUnits() {
+            assertThat(Account.parseUnits("1500000000")).isEqualTo(1_500_000_000L);
+            assertThat(Account.parseUnits("-7")).isEqualTo(-7L);
+        }
+
+        @Test
+        public void keepsLongsBeyondDoublePrecision() {
+            assertThat(Account.parseUnits("9007199254740993")).isEqualTo(9_007_199_254_740_993L);
+        }
+
+        @Test
+        public void convertsLegacyCoins() {
+            assertThat(Account.parseUnits("1.5")).isEqualTo(1_500_000_000L);
+            assertThat(Account.parseUnits("0.1")).isEqualTo(100_000_000L);
+            assertThat(Account.parseUnits("2.0E-9")).isEqualTo(2L);
+            assertThat(Account.parseUnits("1e3")).isEqualTo(1_000_000_000_000L);
+        }
+
+        @Test
+        public void roundsLegacyCoinsToTheNearestUnit() {
+            assertThat(Account.toUnits(0.1 + 0.2)).isEqualTo(300_000_000L);
+            assertThat(Account.toUnits(1.0000000006)).isEqualTo(1_000_000_001L);
+        }
+
+        @Test
+        public void rejectsText() {
+            Throwable thrown = catchThrowable(() -> Account.parseUnits("ten"));
+
+            assertThat(thrown).isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Nested
+    class Json {
+
+        @Test
+        public void roundTrips() {
+            Account account = new Account("a1", 1_500_000_000L, "key");
+
+            String json = genson.serialize(account);
+
+            assertThat(json).contains("\"balance\":1500000000");
+            assertThat(genson.deserialize(json, Account.class)).isEqualTo(account);
+        }
+
+        @Test
+        public void migratesLegacyDoubleBalances() {
+            Account account = genson.deserialize("{\"accountID\":\"a1\",\"balance\":12.5,\"publicKey\":\"key\"}", Account.class);
+
+            assertThat(account).isEqualTo(new Account("a1", 12_500_000_000L, "key"));
+        }
+
+        @Test
+        public void readsAMissingBalanceAsZero() {
+            Account account = genson.deserialize("{\"accountID\":\"a1\"}", Account.class);
+
+            assertThat(account.getBalance()).isZero();
+            assertThat(account.getPublicKey()).isNull();
+        }
+
+        @Test
+        public void leavesOutAMissingPublicKey() {
+            assertThat(genson.serialize(new Account("a1", 5, null))).doesNotContain("publicKey");
+        }
+    }
+
+    @Test
+    public void equalsComparesAllFields() {
+        Account account = new Account("a1", 5, "key");
+
+        assertThat(account).isEqualTo(account);
+        assertThat(account).isEqualTo(new Account("a1", 5, "key"));
+        assertThat(account).hasSameHashCodeAs(new Account("a1", 5, "other"));
+        assertThat(account).isNotEqualTo(new Account("a1", 5, "other"));
+        assertThat(account).isNotEqualTo(new Account("a1", 6, "key"));
+        assertThat(account).isNotEqualTo(new Account("a2", 5, "key"));
+        assertThat(account).isNotEqualTo(null);
+        assertThat(account).isNotEqualTo("a1");
+        assertThat(account.toString()).contains("accountID=a1", "balance=5");
+    }
+}
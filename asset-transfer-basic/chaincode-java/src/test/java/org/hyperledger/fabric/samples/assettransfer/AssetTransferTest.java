@@ -0,0 +1,820 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.hyperledger.fabric.samples.assettransfer.AssetTransfer.ACCOUNTS_CREATED_EVENT;
+import static org.hyperledger.fabric.samples.assettransfer.AssetTransfer.BALANCES_CHANGED_EVENT;
+import static org.hyperledger.fabric.samples.assettransfer.AssetTransfer.BALANCES_INVALIDATED_EVENT;
+import static org.hyperledger.fabric.samples.assettransfer.AssetTransfer.DELTA_INDEX;
+import static org.hyperledger.fabric.samples.assettransfer.AssetTransfer.PUBLIC_KEY_INDEX;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.owlike.genson.Genson;
+
+public final class AssetTransferTest {
+
+    private static final String PUBLIC_KEY = "MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAE";
+
+    private final Genson genson = new Genson();
+
+    private final AssetTransfer contract = new AssetTransfer();
+
+    private final MockLedger ledger = new MockLedger();
+
+    private void createAccount(final String accountID, final long balance) {
+        ledger.submit(contract, ctx -> contract.CreateAccount(ctx, accountID, balance, PUBLIC_KEY));
+    }
+
+    private Account readAccount(final String accountID) {
+        return ledger.submit(contract, ctx -> contract.ReadAccount(ctx, accountID));
+    }
+
+    private long balance(final String accountID) {
+        return readAccount(accountID).getBalance();
+    }
+
+    private void send(final String fromID, final String toID, final long amount) {
+        ledger.submit(contract, ctx -> {
+            contract.Send(ctx, fromID, toID, amount);
+            return null;
+        });
+    }
+
+    private Map<String, byte[]> snapshot() {
+        return new HashMap<>(ledger.getState());
+    }
+
+    private Throwable submitFailing(final MockLedger.TxFunction<?> function) {
+        return catchThrowable(() -> ledger.submit(contract, function));
+    }
+
+    private static void assertError(final Throwable thrown, final String message, final String error) {
+        assertThat(thrown).isInstanceOf(ChaincodeException.class).hasMessage(message);
+        assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo(error.getBytes(UTF_8));
+    }
+
+    /**
+     * Payload of the last chaincode event with the given name, as a map of account ID to balance.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> lastEvent(final String name) {
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(ledger.getStub(), atLeastOnce()).setEvent(eq(name), payload.capture());
+        Map<String, Object> event = genson.deserialize(new String(payload.getValue(), UTF_8), Map.class);
+        Map<String, Long> balances = new HashMap<>();
+        event.forEach((accountID, balance) -> balances.put(accountID, ((Number) balance).longValue()));
+        return balances;
+    }
+
+    @Nested
+    class CreateAccountTransaction {
+
+        @Test
+        public void storesTheBalanceAndPublicKeyApart() {
+            createAccount("a1", 1_500_000_000L);
+
+            assertThat(ledger.getString("a1")).isEqualTo("{\"accountID\":\"a1\",\"balance\":1500000000}");
+            assertThat(ledger.getString(new CompositeKey(PUBLIC_KEY_INDEX, "a1").toString())).isEqualTo(PUBLIC_KEY);
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 1_500_000_000L, PUBLIC_KEY));
+            assertThat(lastEvent(ACCOUNTS_CREATED_EVENT)).containsOnly(entry("a1", 1_500_000_000L));
+        }
+
+        @Test
+        public void whenAccountExists() {
+            createAccount("a1", 5);
+            Map<String, byte[]> before = snapshot();
+
+            Throwable thrown = submitFailing(ctx -> contract.CreateAccount(ctx, "a1", 7, PUBLIC_KEY));
+
+            assertError(thrown, "Account a1 already exists", "ASSET_ALREADY_EXISTS");
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void whenThePublicKeyIsMissing() {
+            assertError(submitFailing(ctx -> contract.CreateAccount(ctx, "a1", 5, null)), "Account a1 has no public key", "INVALID_ARGUMENT");
+            assertError(submitFailing(ctx -> contract.CreateAccount(ctx, "a1", 5, "")), "Account a1 has no public key", "INVALID_ARGUMENT");
+            assertThat(ledger.getState()).isEmpty();
+        }
+    }
+
+    @Nested
+    class CreateAccountsTransaction {
+
+        @Test
+        public void createsEveryAccount() {
+            int created = ledger.submit(contract, ctx -> contract.CreateAccounts(ctx,
+                    "[{\"accountID\":\"a1\",\"balance\":5,\"publicKey\":\"k1\"},"
+                    + "{\"accountID\":\"a2\",\"balance\":7,\"publicKey\":\"k2\"}]"));
+
+            assertThat(created).isEqualTo(2);
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 5, "k1"));
+            assertThat(readAccount("a2")).isEqualTo(new Account("a2", 7, "k2"));
+            assertThat(lastEvent(ACCOUNTS_CREATED_EVENT)).containsOnly(entry("a1", 5L), entry("a2", 7L));
+        }
+
+        @Test
+        public void listsEveryExistingAccountAndWritesNothing() {
+            createAccount("a1", 5);
+            createAccount("a3", 5);
+            Map<String, byte[]> before = snapshot();
+
+            Throwable thrown = catchThrowable(() -> contract.CreateAccounts(ledger.plainContext(),
+                    "[{\"accountID\":\"a1\",\"balance\":1,\"publicKey\":\"k\"},{\"accountID\":\"a2\",\"balance\":1,\"publicKey\":\"k\"},"
+                    + "{\"accountID\":\"a2\",\"balance\":1,\"publicKey\":\"k\"},{\"accountID\":\"a3\",\"balance\":1,\"publicKey\":\"k\"}]"));
+
+            assertError(thrown, "Accounts [a1, a2, a3] already exist", "ASSET_ALREADY_EXISTS");
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void whenThereAreNoAccounts() {
+            assertError(submitFailing(ctx -> contract.CreateAccounts(ctx, "[]")), "No accounts to create", "INVALID_ARGUMENT");
+        }
+
+        @Test
+        public void whenAnAccountHasNoID() {
+            Throwable thrown = submitFailing(ctx -> contract.CreateAccounts(ctx, "[{\"accountID\":\"\",\"balance\":1}]"));
+
+            assertError(thrown, "Account without an ID", "INVALID_ARGUMENT");
+        }
+
+        @Test
+        public void whenAnAccountHasNoPublicKeyWritesNothing() {
+            Map<String, byte[]> before = snapshot();
+
+            Throwable thrown = catchThrowable(() -> contract.CreateAccounts(ledger.plainContext(),
+                    "[{\"accountID\":\"a1\",\"balance\":1,\"publicKey\":\"k1\"},{\"accountID\":\"a2\",\"balance\":1},"
+                    + "{\"accountID\":\"a3\",\"balance\":1,\"publicKey\":\"\"}]"));
+
+            assertError(thrown, "Account a2 has no public key", "INVALID_ARGUMENT");
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+    }
+
+    @Nested
+    class ReadAccountTransaction {
+
+        @Test
+        public void whenAccountDoesNotExist() {
+            Throwable thrown = submitFailing(ctx -> contract.ReadAccount(ctx, "a1"));
+
+            assertError(thrown, "Account a1 does not exist", "ACCOUNT_NOT_FOUND");
+        }
+
+        @Test
+        public void readsALegacyRecordInCoins() {
+            ledger.getState().put("a1", "{\"accountID\":\"a1\",\"balance\":12.5,\"publicKey\":\"key\"}".getBytes(UTF_8));
+
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 12_500_000_000L, "key"));
+            boolean exists = ledger.submit(contract, ctx -> contract.AccountExists(ctx, "a1"));
+            boolean missing = ledger.submit(contract, ctx -> contract.AccountExists(ctx, "a2"));
+
+            assertThat(exists).isTrue();
+            assertThat(missing).isFalse();
+        }
+    }
+
+    @Nested
+    class SendTransaction {
+
+        @Test
+        public void movesTheAmount() {
+            createAccount("a1", 10);
+            createAccount("a2", 3);
+
+            send("a1", "a2", 4);
+
+            assertThat(balance("a1")).isEqualTo(6);
+            assertThat(balance("a2")).isEqualTo(7);
+            assertThat(readAccount("a1").getPublicKey()).isEqualTo(PUBLIC_KEY);
+            assertThat(lastEvent(BALANCES_CHANGED_EVENT)).containsOnly(entry("a1", 6L), entry("a2", 7L));
+        }
+
+        @Test
+        public void canEmptyTheSender() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+
+            send("a1", "a2", 10);
+
+            assertThat(balance("a1")).isZero();
+            assertThat(balance("a2")).isEqualTo(10);
+        }
+
+        @Test
+        public void migratesALegacyRecord() {
+            ledger.getState().put("a1", "{\"accountID\":\"a1\",\"balance\":1.5,\"publicKey\":\"key\"}".getBytes(UTF_8));
+            createAccount("a2", 0);
+
+            send("a1", "a2", 500_000_000L);
+
+            assertThat(ledger.getString("a1")).isEqualTo("{\"accountID\":\"a1\",\"balance\":1000000000}");
+            assertThat(ledger.getString(new CompositeKey(PUBLIC_KEY_INDEX, "a1").toString())).isEqualTo("key");
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 1_000_000_000L, "key"));
+        }
+
+        @Test
+        public void rejectsNonPositiveAmounts() {
+            createAccount("a1", 10);
+            createAccount("a2", 10);
+            Map<String, byte[]> before = snapshot();
+
+            for (long amount : new long[] {0, -1, Long.MIN_VALUE}) {
+                Throwable thrown = catchThrowable(() -> contract.Send(ledger.plainContext(), "a1", "a2", amount));
+
+                assertError(thrown, "Amount must be positive", "INVALID_ARGUMENT");
+            }
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void rejectsSendingToTheSameAccount() {
+            createAccount("a1", 10);
+            Map<String, byte[]> before = snapshot();
+
+            Throwable thrown = catchThrowable(() -> contract.Send(ledger.plainContext(), "a1", "a1", 4));
+
+            assertError(thrown, "Cannot send to the same account", "INVALID_ARGUMENT");
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void whenBalanceIsTooLow() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            Map<String, byte[]> before = snapshot();
+
+            Throwable thrown = catchThrowable(() -> contract.Send(ledger.plainContext(), "a1", "a2", 11));
+
+            assertError(thrown, "Account a1 does not have enough blanace to make the transaction", "NOT_ENOUGH_BALANCE");
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void whenAnAccountDoesNotExist() {
+            createAccount("a1", 10);
+
+            assertError(catchThrowable(() -> contract.Send(ledger.plainContext(), "a1", "a2", 1)),
+                    "Account a2 does not exist", "ACCOUNT_NOT_FOUND");
+            assertError(catchThrowable(() -> contract.Send(ledger.plainContext(), "a0", "a1", 1)),
+                    "Account a0 does not exist", "ACCOUNT_NOT_FOUND");
+        }
+    }
+
+    @Nested
+    class SendBatchTransaction {
+
+        private int sendBatch(final String legsJSON) {
+            return ledger.submit(contract, ctx -> contract.SendBatch(ctx, legsJSON));
+        }
+
+        @Test
+        public void netsLegsOntoEachAccount() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            createAccount("a3", 0);
+
+            int updated = sendBatch("[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":4},"
+                    + "{\"from\":\"a1\",\"to\":\"a3\",\"amount\":5},"
+                    + "{\"from\":\"a2\",\"to\":\"a3\",\"amount\":3},"
+                    + "{\"from\":\"a3\",\"to\":\"a1\",\"amount\":1}]");
+
+            assertThat(updated).isEqualTo(3);
+            assertThat(balance("a1")).isEqualTo(2);
+            assertThat(balance("a2")).isEqualTo(1);
+            assertThat(balance("a3")).isEqualTo(7);
+            assertThat(lastEvent(BALANCES_CHANGED_EVENT)).containsOnly(entry("a1", 2L), entry("a2", 1L), entry("a3", 7L));
+        }
+
+        @Test
+        public void readsAndWritesEachAccountOnce() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            ChaincodeStub stub = ledger.getStub();
+            clearInvocations(stub);
+
+            contract.SendBatch(ledger.plainContext(), "[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":1},"
+                    + "{\"from\":\"a2\",\"to\":\"a1\",\"amount\":1},"
+                    + "{\"from\":\"a1\",\"to\":\"a2\",\"amount\":2}]");
+
+            verify(stub).getState("a1");
+            verify(stub).getState("a2");
+            verify(stub).putState(eq("a1"), any(byte[].class));
+            verify(stub).putState(eq("a2"), any(byte[].class));
+            assertThat(balance("a1")).isEqualTo(8);
+            assertThat(balance("a2")).isEqualTo(2);
+        }
+
+        @Test
+        public void leavesAccountsThatNetToZeroUnwritten() {
+            createAccount("a1", 10);
+            createAccount("a2", 10);
+            createAccount("a3", 0);
+            byte[] a2 = ledger.getState().get("a2");
+
+            int updated = sendBatch("[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":4},"
+                    + "{\"from\":\"a2\",\"to\":\"a3\",\"amount\":4}]");
+
+            assertThat(updated).isEqualTo(2);
+            assertThat(ledger.getState().get("a2")).isSameAs(a2);
+            assertThat(lastEvent(BALANCES_CHANGED_EVENT)).containsOnly(entry("a1", 6L), entry("a3", 4L));
+        }
+
+        @Test
+        public void appliesLegsInOrder() {
+            createAccount("a1", 0);
+            createAccount("a2", 5);
+
+            // a1 can only pay a2 back out of what the first leg gave it
+            sendBatch("[{\"from\":\"a2\",\"to\":\"a1\",\"amount\":5},"
+                    + "{\"from\":\"a1\",\"to\":\"a2\",\"amount\":3}]");
+
+            assertThat(balance("a1")).isEqualTo(2);
+            assertThat(balance("a2")).isEqualTo(3);
+        }
+
+        @Test
+        public void rejectsAnOverdraftPartwayWithoutWriting() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            Map<String, byte[]> before = snapshot();
+            ChaincodeStub stub = ledger.getStub();
+            clearInvocations(stub);
+
+            Throwable thrown = catchThrowable(() -> contract.SendBatch(ledger.plainContext(),
+                    "[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":6},"
+                    + "{\"from\":\"a1\",\"to\":\"a2\",\"amount\":5}]"));
+
+            assertError(thrown, "Account a1 does not have enough blanace to make the transaction", "NOT_ENOUGH_BALANCE");
+            verify(stub, never()).putState(anyString(), any(byte[].class));
+            verify(stub, never()).putStringState(anyString(), anyString());
+            verify(stub, never()).delState(anyString());
+            verify(stub, never()).setEvent(anyString(), any(byte[].class));
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void treatsASelfTransferAsANoOp() {
+            createAccount("a1", 10);
+            byte[] a1 = ledger.getState().get("a1");
+
+            int updated = sendBatch("[{\"from\":\"a1\",\"to\":\"a1\",\"amount\":10}]");
+
+            assertThat(updated).isZero();
+            assertThat(ledger.getState().get("a1")).isSameAs(a1);
+            assertThat(lastEvent(BALANCES_CHANGED_EVENT)).isEmpty();
+        }
+
+        @Test
+        public void stillChecksTheBalanceOfASelfTransfer() {
+            createAccount("a1", 10);
+
+            Throwable thrown = submitFailing(ctx -> contract.SendBatch(ctx, "[{\"from\":\"a1\",\"to\":\"a1\",\"amount\":11}]"));
+
+            assertError(thrown, "Account a1 does not have enough blanace to make the transaction", "NOT_ENOUGH_BALANCE");
+        }
+
+        @Test
+        public void rejectsNonPositiveAmounts() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+
+            Throwable thrown = submitFailing(ctx -> contract.SendBatch(ctx, "[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":1},"
+                    + "{\"from\":\"a2\",\"to\":\"a1\",\"amount\":-1}]"));
+
+            assertError(thrown, "Transfer 1 in batch has an invalid amount", "INVALID_ARGUMENT");
+            assertThat(balance("a1")).isEqualTo(10);
+        }
+
+        @Test
+        public void whenTheBatchIsEmpty() {
+            assertError(submitFailing(ctx -> contract.SendBatch(ctx, "[]")), "Batch contains no transfers", "INVALID_ARGUMENT");
+        }
+
+        @Test
+        public void whenAnAccountDoesNotExist() {
+            createAccount("a1", 10);
+
+            Throwable thrown = submitFailing(ctx -> contract.SendBatch(ctx, "[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":1}]"));
+
+            assertError(thrown, "Account a2 does not exist", "ACCOUNT_NOT_FOUND");
+        }
+    }
+
+    @Nested
+    class SendDeltaTransaction {
+
+        private void sendDelta(final String fromID, final String toID, final long amount) {
+            ledger.submit(contract, ctx -> {
+                contract.SendDelta(ctx, fromID, toID, amount);
+                return null;
+            });
+        }
+
+        @Test
+        public void foldsToTheSameBalancesAsSend() {
+            MockLedger direct = ledger;
+            MockLedger deltas = new MockLedger();
+            for (MockLedger each : new MockLedger[] {direct, deltas}) {
+                each.submit(contract, ctx -> contract.CreateAccount(ctx, "a1", 10, PUBLIC_KEY));
+                each.submit(contract, ctx -> contract.CreateAccount(ctx, "a2", 3, PUBLIC_KEY));
+                each.submit(contract, ctx -> contract.CreateAccount(ctx, "a3", 0, PUBLIC_KEY));
+            }
+            String[][] transfers = {{"a1", "a2", "4"}, {"a2", "a3", "6"}, {"a3", "a1", "1"}, {"a1", "a3", "2"}};
+
+            for (String[] transfer : transfers) {
+                long amount = Long.parseLong(transfer[2]);
+                direct.submit(contract, ctx -> {
+                    contract.Send(ctx, transfer[0], transfer[1], amount);
+                    return null;
+                });
+                deltas.submit(contract, ctx -> {
+                    contract.SendDelta(ctx, transfer[0], transfer[1], amount);
+                    return null;
+                });
+            }
+
+            assertThat(deltas.compositeKeys(DELTA_INDEX)).hasSize(2 * transfers.length);
+            for (String accountID : new String[] {"a1", "a2", "a3"}) {
+                Account expected = direct.submit(contract, ctx -> contract.ReadAccount(ctx, accountID));
+                Account folded = deltas.submit(contract, ctx -> contract.ReadAccount(ctx, accountID));
+                assertThat(folded).isEqualTo(expected);
+            }
+            String expectedAll = direct.submit(contract, contract::GetAllAccounts);
+            String foldedAll = deltas.submit(contract, contract::GetAllAccounts);
+            assertThat(foldedAll).isEqualTo(expectedAll);
+        }
+
+        @Test
+        public void leavesTheBalanceRecordsUnwritten() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            Map<String, byte[]> before = snapshot();
+
+            sendDelta("a1", "a2", 4);
+
+            assertThat(ledger.getState().get("a1")).isSameAs(before.get("a1"));
+            assertThat(ledger.getState().get("a2")).isSameAs(before.get("a2"));
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).containsExactly(
+                    new CompositeKey(DELTA_INDEX, "a1", "tx3", "0").toString(),
+                    new CompositeKey(DELTA_INDEX, "a2", "tx3", "1").toString());
+            verify(ledger.getStub()).setEvent(BALANCES_INVALIDATED_EVENT, "[\"a1\",\"a2\"]".getBytes(UTF_8));
+        }
+
+        @Test
+        public void checksTheBalanceIncludingPendingDeltas() {
+            createAccount("a1", 5);
+            createAccount("a2", 0);
+            sendDelta("a1", "a2", 4);
+            Map<String, byte[]> before = snapshot();
+
+            Throwable thrown = submitFailing(ctx -> {
+                contract.SendDelta(ctx, "a1", "a2", 2);
+                return null;
+            });
+
+            assertError(thrown, "Account a1 does not have enough blanace to make the transaction", "NOT_ENOUGH_BALANCE");
+            assertThat(ledger.getState()).isEqualTo(before);
+        }
+
+        @Test
+        public void rejectsNonPositiveAmounts() {
+            createAccount("a1", 5);
+            createAccount("a2", 0);
+
+            for (long amount : new long[] {0, -1}) {
+                Throwable thrown = submitFailing(ctx -> {
+                    contract.SendDelta(ctx, "a1", "a2", amount);
+                    return null;
+                });
+
+                assertError(thrown, "Amount must be positive", "INVALID_ARGUMENT");
+            }
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).isEmpty();
+        }
+
+        @Test
+        public void whenAnAccountDoesNotExist() {
+            createAccount("a1", 5);
+
+            Throwable thrown = submitFailing(ctx -> {
+                contract.SendDelta(ctx, "a1", "a2", 1);
+                return null;
+            });
+
+            assertError(thrown, "Account a2 does not exist", "ACCOUNT_NOT_FOUND");
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).isEmpty();
+        }
+
+        @Test
+        public void sendQueriesTheDeltasOfEachAccountOnce() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            sendDelta("a1", "a2", 4);
+            ChaincodeStub stub = ledger.getStub();
+            clearInvocations(stub);
+
+            send("a2", "a1", 1);
+
+            verify(stub).getStateByPartialCompositeKey(DELTA_INDEX, "a1");
+            verify(stub).getStateByPartialCompositeKey(DELTA_INDEX, "a2");
+            verify(stub, times(2)).getStateByPartialCompositeKey(anyString(), any());
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).isEmpty();
+            assertThat(balance("a1")).isEqualTo(7);
+            assertThat(balance("a2")).isEqualTo(3);
+        }
+
+        @Test
+        public void sendBatchQueriesTheDeltasOfEachAccountOnce() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            sendDelta("a1", "a2", 4);
+            ChaincodeStub stub = ledger.getStub();
+            clearInvocations(stub);
+
+            ledger.submit(contract, ctx -> contract.SendBatch(ctx,
+                    "[{\"from\":\"a1\",\"to\":\"a2\",\"amount\":1},{\"from\":\"a2\",\"to\":\"a1\",\"amount\":2}]"));
+
+            verify(stub, times(2)).getStateByPartialCompositeKey(anyString(), any());
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).isEmpty();
+            assertThat(balance("a1")).isEqualTo(7);
+            assertThat(balance("a2")).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    class CompactAccountTransaction {
+
+        @Test
+        public void deletesExactlyTheFoldedDeltas() {
+            // a1 is a prefix of a10, whose deltas must be left alone
+            createAccount("a1", 10);
+            createAccount("a10", 10);
+            createAccount("a2", 0);
+            for (String[] transfer : new String[][] {{"a1", "a2"}, {"a10", "a2"}, {"a2", "a1"}, {"a1", "a10"}}) {
+                ledger.submit(contract, ctx -> {
+                    contract.SendDelta(ctx, transfer[0], transfer[1], 1);
+                    return null;
+                });
+            }
+            String a1Prefix = new CompositeKey(DELTA_INDEX, "a1").toString();
+            List<String> others = ledger.compositeKeys(DELTA_INDEX).stream()
+                    .filter(key -> !key.startsWith(a1Prefix))
+                    .collect(Collectors.toList());
+            assertThat(others).hasSize(5);
+
+            Account compacted = ledger.submit(contract, ctx -> contract.CompactAccount(ctx, "a1"));
+
+            assertThat(compacted).isEqualTo(new Account("a1", 9, PUBLIC_KEY));
+            assertThat(ledger.getString("a1")).isEqualTo("{\"accountID\":\"a1\",\"balance\":9}");
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).isEqualTo(others);
+            assertThat(lastEvent(BALANCES_CHANGED_EVENT)).containsOnly(entry("a1", 9L));
+            assertThat(balance("a10")).isEqualTo(10);
+            assertThat(balance("a2")).isEqualTo(1);
+        }
+
+        @Test
+        public void keepsTheBalanceAcrossFurtherTransfers() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            ledger.submit(contract, ctx -> {
+                contract.SendDelta(ctx, "a1", "a2", 4);
+                return null;
+            });
+            ledger.submit(contract, ctx -> contract.CompactAccount(ctx, "a1"));
+
+            send("a1", "a2", 6);
+
+            assertThat(balance("a1")).isZero();
+            assertThat(balance("a2")).isEqualTo(10);
+            // Send folded the deltas of a2 into its balance as well
+            assertThat(ledger.compositeKeys(DELTA_INDEX)).isEmpty();
+        }
+
+        @Test
+        public void whenAccountDoesNotExist() {
+            Throwable thrown = submitFailing(ctx -> contract.CompactAccount(ctx, "a1"));
+
+            assertError(thrown, "Account a1 does not exist", "ACCOUNT_NOT_FOUND");
+        }
+    }
+
+    @Nested
+    class AccountEncoding {
+
+        private final AssetTransfer binary = new AssetTransfer(true);
+
+        private void send(final AssetTransfer writer, final String fromID, final String toID, final long amount) {
+            ledger.submit(writer, ctx -> {
+                writer.Send(ctx, fromID, toID, amount);
+                return null;
+            });
+        }
+
+        @Test
+        public void writesBinaryAccounts() {
+            ledger.submit(binary, ctx -> binary.CreateAccount(ctx, "a1", 10, PUBLIC_KEY));
+            ledger.submit(binary, ctx -> binary.CreateAccount(ctx, "a2", 0, PUBLIC_KEY));
+
+            send(binary, "a1", "a2", 4);
+
+            assertThat(AccountCodec.isBinary(ledger.getState().get("a1"))).isTrue();
+            assertThat(AccountCodec.decode(ledger.getState().get("a1"))).isEqualTo(new Account("a1", 6, null));
+            Account a2 = ledger.submit(binary, ctx -> binary.ReadAccount(ctx, "a2"));
+            assertThat(a2).isEqualTo(new Account("a2", 4, PUBLIC_KEY));
+        }
+
+        @Test
+        public void readsAndRewritesJsonAccountsAfterSwitchingToBinary() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            createAccount("a3", 0);
+
+            send(binary, "a1", "a2", 4);
+
+            assertThat(AccountCodec.decode(ledger.getState().get("a1"))).isEqualTo(new Account("a1", 6, null));
+            assertThat(AccountCodec.decode(ledger.getState().get("a2"))).isEqualTo(new Account("a2", 4, null));
+            assertThat(ledger.getString("a3")).isEqualTo("{\"accountID\":\"a3\",\"balance\":0}");
+            Account a3 = ledger.submit(binary, ctx -> binary.ReadAccount(ctx, "a3"));
+            assertThat(a3).isEqualTo(new Account("a3", 0, PUBLIC_KEY));
+        }
+
+        @Test
+        public void fallsBackToJsonAfterSwitchingBack() {
+            ledger.submit(binary, ctx -> binary.CreateAccount(ctx, "a1", 10, PUBLIC_KEY));
+            ledger.submit(binary, ctx -> binary.CreateAccount(ctx, "a2", 0, PUBLIC_KEY));
+
+            send(contract, "a1", "a2", 4);
+
+            assertThat(ledger.getString("a1")).isEqualTo("{\"accountID\":\"a1\",\"balance\":6}");
+            assertThat(ledger.getString("a2")).isEqualTo("{\"accountID\":\"a2\",\"balance\":4}");
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 6, PUBLIC_KEY));
+        }
+
+        @Test
+        public void movesThePublicKeyOutOfALegacyBinaryRecord() {
+            ledger.getState().put("a1", AccountCodec.encode(new Account("a1", 10, PUBLIC_KEY)));
+            createAccount("a2", 0);
+
+            send(binary, "a1", "a2", 4);
+
+            assertThat(AccountCodec.hasPublicKey(ledger.getState().get("a1"))).isFalse();
+            assertThat(ledger.getString(new CompositeKey(PUBLIC_KEY_INDEX, "a1").toString())).isEqualTo(PUBLIC_KEY);
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 6, PUBLIC_KEY));
+        }
+    }
+
+    @Test
+    public void transferLegsCompareAllFields() {
+        TransferLeg leg = new TransferLeg("a1", "a2", 5);
+
+        assertThat(leg).isEqualTo(leg);
+        assertThat(leg).isEqualTo(new TransferLeg("a1", "a2", 5));
+        assertThat(leg).hasSameHashCodeAs(new TransferLeg("a1", "a2", 5));
+        assertThat(leg).isNotEqualTo(new TransferLeg("a2", "a2", 5));
+        assertThat(leg).isNotEqualTo(new TransferLeg("a1", "a1", 5));
+        assertThat(leg).isNotEqualTo(new TransferLeg("a1", "a2", 6));
+        assertThat(leg).isNotEqualTo(null);
+        assertThat(leg.toString()).contains("from=a1", "to=a2", "amount=5");
+    }
+
+    /**
+     * Ledger reads made by the account queries, which on a peer are each a round trip.
+     */
+    @Nested
+    class AccountQueryReads {
+
+        @Test
+        public void getAllAccountsScansThreeTimesWhateverTheNumberOfAccounts() {
+            for (int i = 0; i < 5; i++) {
+                createAccount("a" + i, 10);
+            }
+            ledger.submit(contract, ctx -> {
+                contract.SendDelta(ctx, "a0", "a1", 3);
+                return null;
+            });
+            ChaincodeStub stub = ledger.getStub();
+            clearInvocations(stub);
+
+            String json = contract.GetAllAccounts(ledger.plainContext());
+
+            Account[] accounts = genson.deserialize(json, Account[].class);
+            assertThat(accounts).hasSize(5).contains(new Account("a0", 7, PUBLIC_KEY), new Account("a1", 13, PUBLIC_KEY));
+            verify(stub).getStateByRange("", "");
+            verify(stub, times(2)).getStateByPartialCompositeKey(any(CompositeKey.class));
+            verify(stub, never()).getStateByPartialCompositeKey(anyString(), any());
+            verify(stub, never()).getState(anyString());
+            verify(stub, never()).getStringState(anyString());
+        }
+
+        @Test
+        public void getAllAccountsKeepsAnEmbeddedPublicKey() {
+            ledger.getState().put("a1", "{\"accountID\":\"a1\",\"balance\":5,\"publicKey\":\"legacy\"}".getBytes(UTF_8));
+            createAccount("a2", 10);
+
+            String json = ledger.submit(contract, contract::GetAllAccounts);
+
+            assertThat(genson.deserialize(json, Account[].class))
+                    .containsExactly(new Account("a1", 5, "legacy"), new Account("a2", 10, PUBLIC_KEY));
+        }
+
+        @Test
+        public void aPageReadsOnlyItsRange() {
+            for (int i = 0; i < 5; i++) {
+                createAccount("a" + i, 10);
+            }
+            ledger.getState().put("a5", "{\"accountID\":\"a5\",\"balance\":5,\"publicKey\":\"legacy\"}".getBytes(UTF_8));
+            ledger.submit(contract, ctx -> {
+                contract.SendDelta(ctx, "a0", "a1", 3);
+                return null;
+            });
+            ChaincodeStub stub = ledger.getStub();
+            clearInvocations(stub);
+
+            contract.GetAccountsWithPagination(ledger.plainContext(), 3, "");
+
+            verify(stub).getStateByRangeWithPagination("", "", 3, "");
+            verify(stub, never()).getState(anyString());
+            verify(stub, never()).getStringState(anyString());
+            verify(stub, never()).getStateByPartialCompositeKey(anyString(), any());
+            verify(stub, never()).getStateByPartialCompositeKey(any(CompositeKey.class));
+        }
+    }
+
+    @Nested
+    class GetAccountsWithPaginationTransaction {
+
+        private AccountPage page(final int pageSize, final String bookmark) {
+            String json = ledger.submit(contract, ctx -> contract.GetAccountsWithPagination(ctx, pageSize, bookmark));
+            return genson.deserialize(json, AccountPage.class);
+        }
+
+        @Test
+        public void pagesThroughEveryAccount() {
+            for (int i = 0; i < 5; i++) {
+                createAccount("a" + i, i);
+            }
+
+            AccountPage first = page(2, "");
+            AccountPage second = page(2, first.getBookmark());
+            AccountPage last = page(2, second.getBookmark());
+
+            assertThat(first.getRecords()).containsExactly(new Account("a0", 0, null), new Account("a1", 1, null));
+            assertThat(first.getFetchedRecordsCount()).isEqualTo(2);
+            assertThat(second.getRecords()).extracting(Account::getAccountID).containsExactly("a2", "a3");
+            assertThat(last.getRecords()).containsExactly(new Account("a4", 4, null));
+            assertThat(last.getFetchedRecordsCount()).isEqualTo(1);
+            assertThat(last.toString()).contains("fetchedRecordsCount=1");
+        }
+
+        @Test
+        public void listsTheStoredBalancesWithoutKeysOrPendingDeltas() {
+            createAccount("a1", 10);
+            createAccount("a2", 0);
+            ledger.getState().put("a3", "{\"accountID\":\"a3\",\"balance\":5,\"publicKey\":\"legacy\"}".getBytes(UTF_8));
+            ledger.submit(contract, ctx -> {
+                contract.SendDelta(ctx, "a1", "a2", 3);
+                return null;
+            });
+
+            assertThat(page(5, "").getRecords()).containsExactly(
+                    new Account("a1", 10, null), new Account("a2", 0, null), new Account("a3", 5, null));
+            assertThat(readAccount("a1")).isEqualTo(new Account("a1", 7, PUBLIC_KEY));
+        }
+
+        @Test
+        public void whenPageSizeIsNotPositive() {
+            Throwable thrown = submitFailing(ctx -> contract.GetAccountsWithPagination(ctx, 0, ""));
+
+            assertError(thrown, "Page size must be positive", "INVALID_ARGUMENT");
+            verify(ledger.getStub(), never()).getStateByRangeWithPagination(anyString(), anyString(), anyInt(), anyString());
+        }
+    }
+}
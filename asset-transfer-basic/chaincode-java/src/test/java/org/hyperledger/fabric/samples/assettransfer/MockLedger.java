@@ -0,0 +1,230 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.msp.Identities.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeShim.QueryResponseMetadata;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * A mocked ChaincodeStub backed by a sorted map of the world state, so a test can run
+ * several transactions against the contract and read back what they wrote. Transactions
+ * go through the contract's own context and afterTransaction, as on a peer, so writes
+ * only reach the map once the transaction function has returned.
+ */
+final class MockLedger {
+
+    private final SortedMap<String, byte[]> state = new TreeMap<>();
+
+    private final ChaincodeStub stub = mock(ChaincodeStub.class);
+
+    private int txCount;
+
+    MockLedger() {
+        // the context reads the client identity from the creator when it is made
+        when(stub.getCreator()).thenReturn(creator());
+        when(stub.getTxId()).thenAnswer(invocation -> "tx" + txCount);
+        when(stub.getState(anyString())).thenAnswer(invocation -> get(invocation.getArgument(0)));
+        when(stub.getStringState(anyString())).thenAnswer(invocation -> new String(get(invocation.getArgument(0)), UTF_8));
+        doAnswer(invocation -> state.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(stub).putState(anyString(), any(byte[].class));
+        doAnswer(invocation -> state.put(invocation.getArgument(0), invocation.<String>getArgument(1).getBytes(UTF_8)))
+                .when(stub).putStringState(anyString(), anyString());
+        doAnswer(invocation -> state.remove(invocation.<String>getArgument(0)))
+                .when(stub).delState(anyString());
+        when(stub.createCompositeKey(anyString(), any())).thenAnswer(invocation -> compositeKey(invocation.getArguments()));
+        when(stub.getStateByPartialCompositeKey(anyString(), any())).thenAnswer(invocation -> {
+            String prefix = compositeKey(invocation.getArguments()).toString();
+            return new Results(state.subMap(prefix, prefix + Character.MAX_VALUE));
+        });
+        when(stub.getStateByPartialCompositeKey(any(CompositeKey.class))).thenAnswer(invocation -> {
+            String prefix = invocation.getArgument(0).toString();
+            return new Results(state.subMap(prefix, prefix + Character.MAX_VALUE));
+        });
+        when(stub.splitCompositeKey(anyString())).thenAnswer(invocation -> CompositeKey.parseCompositeKey(invocation.getArgument(0)));
+        // as on a peer, a range query only returns simple keys, not composite ones
+        when(stub.getStateByRange("", "")).thenAnswer(invocation -> new Results(simpleKeys()));
+        when(stub.getStateByRangeWithPagination(anyString(), anyString(), anyInt(), anyString())).thenAnswer(invocation -> {
+            int pageSize = invocation.getArgument(2);
+            String bookmark = invocation.getArgument(3);
+            SortedMap<String, byte[]> page = new TreeMap<>();
+            String next = "";
+            SortedMap<String, byte[]> from = bookmark.isEmpty() ? simpleKeys() : simpleKeys().tailMap(bookmark);
+            for (Map.Entry<String, byte[]> entry : from.entrySet()) {
+                if (page.size() == pageSize) {
+                    next = entry.getKey();
+                    break;
+                }
+                page.put(entry.getKey(), entry.getValue());
+            }
+            return new PageResults(page, next);
+        });
+    }
+
+    /**
+     * Runs a transaction function the way the contract router does: with a context made
+     * by the contract, then afterTransaction.
+     */
+    <T> T submit(final AssetTransfer contract, final TxFunction<T> function) {
+        txCount++;
+        Context ctx = contract.createContext(stub);
+        T result = function.run(ctx);
+        contract.afterTransaction(ctx, result);
+        return result;
+    }
+
+    /**
+     * A context on the bare stub, without the contract's caching, to see the calls a
+     * transaction function makes itself.
+     */
+    Context plainContext() {
+        Context ctx = mock(Context.class);
+        when(ctx.getStub()).thenReturn(stub);
+        return ctx;
+    }
+
+    ChaincodeStub getStub() {
+        return stub;
+    }
+
+    SortedMap<String, byte[]> getState() {
+        return state;
+    }
+
+    String getString(final String key) {
+        byte[] value = state.get(key);
+        return value == null ? null : new String(value, UTF_8);
+    }
+
+    /**
+     * Keys of the composite keys of the given object type, in key order.
+     */
+    List<String> compositeKeys(final String objectType) {
+        String prefix = new CompositeKey(objectType).toString();
+        return new ArrayList<>(state.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+    }
+
+    private static byte[] creator() {
+        try (InputStream certificate = MockLedger.class.getResourceAsStream("/client.pem")) {
+            return SerializedIdentity.newBuilder()
+                    .setMspid("Org1MSP")
+                    .setIdBytes(ByteString.readFrom(certificate))
+                    .build()
+                    .toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] get(final String key) {
+        byte[] value = state.get(key);
+        // the peer returns an empty value for a missing key
+        return value == null ? new byte[0] : value;
+    }
+
+    private static CompositeKey compositeKey(final Object[] args) {
+        return new CompositeKey((String) args[0], Arrays.copyOfRange(args, 1, args.length, String[].class));
+    }
+
+    // composite keys start with U+0000 and sort before all others
+    private SortedMap<String, byte[]> simpleKeys() {
+        return state.tailMap("\u0001");
+    }
+
+    @FunctionalInterface
+    interface TxFunction<T> {
+        T run(Context ctx);
+    }
+
+    private static class Results implements QueryResultsIterator<KeyValue> {
+
+        private final List<KeyValue> results = new ArrayList<>();
+
+        Results(final SortedMap<String, byte[]> entries) {
+            entries.forEach((key, value) -> results.add(new MockKeyValue(key, value)));
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return results.iterator();
+        }
+
+        @Override
+        public void close() {
+            // do nothing
+        }
+    }
+
+    private static final class PageResults extends Results implements QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final QueryResponseMetadata metadata;
+
+        PageResults(final SortedMap<String, byte[]> entries, final String bookmark) {
+            super(entries);
+            metadata = QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(entries.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+    }
+
+    private static final class MockKeyValue implements KeyValue {
+
+        private final String key;
+
+        private final byte[] value;
+
+        MockKeyValue(final String key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, UTF_8);
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+    }
+}
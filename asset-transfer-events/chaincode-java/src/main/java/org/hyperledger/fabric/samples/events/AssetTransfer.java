@@ -18,6 +18,8 @@ import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Main Chaincode class.
@@ -45,9 +47,23 @@ import java.util.Map;
 @Default
 public final class AssetTransfer implements ContractInterface {
 
+    private static final Logger LOG = Logger.getLogger(AssetTransfer.class.getName());
+
     static final String IMPLICIT_COLLECTION_NAME_PREFIX = "_implicit_org_";
     static final String PRIVATE_PROPS_KEY = "asset_properties";
 
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new CachingContext(stub);
+    }
+
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        if (ctx instanceof CachingContext) {
+            ((CachingContext) ctx).flush();
+        }
+    }
+
     /**
      * Retrieves the asset details with the specified ID
      *
@@ -57,7 +73,9 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String ReadAsset(final Context ctx, final String assetID) {
-        System.out.printf("ReadAsset: ID %s\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("ReadAsset: ID %s", assetID));
+        }
 
         Asset asset = getState(ctx, assetID);
         String privData = readPrivateData(ctx, assetID);
@@ -89,14 +107,14 @@ public final class AssetTransfer implements ContractInterface {
         }
 
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         // Check if asset already exists
         byte[] assetJSON = ctx.getStub().getState(assetID);
         if (assetJSON != null && assetJSON.length > 0) {
             errorMessage = String.format("Asset %s already exists", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
@@ -104,7 +122,9 @@ public final class AssetTransfer implements ContractInterface {
 
         savePrivateData(ctx, assetID);
         assetJSON = asset.serialize();
-        System.out.printf("CreateAsset Put: ID %s Data %s\n", assetID, new String(assetJSON));
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("CreateAsset Put: ID %s", assetID));
+        }
 
         stub.putState(assetID, assetJSON);
         // add Event data to the transaction data. Event will be published after the block containing
@@ -135,15 +155,19 @@ public final class AssetTransfer implements ContractInterface {
             errorMessage = "Empty input: newOwner";
         }
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
-        System.out.printf("TransferAsset: verify asset %s exists\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("TransferAsset: verify asset %s exists", assetID));
+        }
         Asset thisAsset = getState(ctx, assetID);
         // Transfer asset to new owner
         thisAsset.setOwner(newOwner);
 
-        System.out.printf(" Transfer Asset: ID %s to owner %s\n", assetID, newOwner);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Transfer Asset: ID %s to owner %s", assetID, newOwner));
+        }
         savePrivateData(ctx, assetID); // save private data if any
         byte[] assetJSON = thisAsset.serialize();
 
@@ -174,7 +198,7 @@ public final class AssetTransfer implements ContractInterface {
         }
 
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         // reads from the Statedb. Check if asset already exists
@@ -195,7 +219,9 @@ public final class AssetTransfer implements ContractInterface {
 
         savePrivateData(ctx, assetID);
         byte[] assetJSON = asset.serialize();
-        System.out.printf("UpdateAsset Put: ID %s Data %s\n", assetID, new String(assetJSON));
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("UpdateAsset Put: ID %s", assetID));
+        }
         stub.putState(assetID, assetJSON);
         stub.setEvent("UpdateAsset", assetJSON); //publish Event
         return asset;
@@ -210,10 +236,14 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteAsset(final Context ctx, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("DeleteAsset: verify asset %s exists\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("DeleteAsset: verify asset %s exists", assetID));
+        }
         Asset asset = getState(ctx, assetID);
 
-        System.out.printf(" DeleteAsset:  ID %s\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("DeleteAsset:  ID %s", assetID));
+        }
         // delete private details of asset
         removePrivateData(ctx, assetID);
         stub.delState(assetID);         // delete the key from Statedb
@@ -224,7 +254,7 @@ public final class AssetTransfer implements ContractInterface {
         byte[] assetJSON = ctx.getStub().getState(assetID);
         if (assetJSON == null || assetJSON.length == 0) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
@@ -243,7 +273,9 @@ public final class AssetTransfer implements ContractInterface {
         String privData = null;
         //only if ClientOrgMatchesPeerOrg
         if (peerMSPID.equals(clientMSPID)) {
-            System.out.printf(" ReadPrivateData from collection %s, ID %s\n", implicitCollectionName, assetKey);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("ReadPrivateData from collection %s, ID %s", implicitCollectionName, assetKey));
+            }
             byte[] propJSON = ctx.getStub().getPrivateData(implicitCollectionName, assetKey);
 
             if (propJSON != null && propJSON.length > 0) {
@@ -263,7 +295,9 @@ public final class AssetTransfer implements ContractInterface {
             if (transientMap != null && transientMap.containsKey(PRIVATE_PROPS_KEY)) {
                 byte[] transientAssetJSON = transientMap.get(PRIVATE_PROPS_KEY);
 
-                System.out.printf("Asset's PrivateData Put in collection %s, ID %s\n", implicitCollectionName, assetKey);
+                if (LOG.isLoggable(Level.FINE)) {
+                    LOG.fine(String.format("Asset's PrivateData Put in collection %s, ID %s", implicitCollectionName, assetKey));
+                }
                 ctx.getStub().putPrivateData(implicitCollectionName, assetKey, transientAssetJSON);
             }
         }
@@ -275,7 +309,9 @@ public final class AssetTransfer implements ContractInterface {
         String implicitCollectionName = getCollectionName(ctx);
 
         if (peerMSPID.equals(clientMSPID)) {
-            System.out.printf("PrivateData Delete from collection %s, ID %s\n", implicitCollectionName, assetKey);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("PrivateData Delete from collection %s, ID %s", implicitCollectionName, assetKey));
+            }
             ctx.getStub().delPrivateData(implicitCollectionName, assetKey);
         }
     }
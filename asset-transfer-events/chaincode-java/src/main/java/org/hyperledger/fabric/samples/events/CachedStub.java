@@ -0,0 +1,130 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.events;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Per-transaction cache in front of a ChaincodeStub. Each key is fetched from the peer
+ * at most once, and writes are held back until {@link #flush()} so that several puts
+ * to the same key cost a single call.
+ *
+ * Reads keep the peer's semantics: a key written earlier in the transaction still
+ * reads as its committed value. Only the byte array state and private data calls the
+ * contract makes are cached; everything else, such as range queries or the string
+ * forms of these calls, goes to the peer as before.
+ *
+ * The stub is wrapped in a dynamic proxy, so every method not handled here, including
+ * ones added by later shim versions, is passed straight through.
+ */
+final class CachedStub implements InvocationHandler {
+
+    // world state entries are cached under this name, which no private data collection can have
+    private static final String WORLD_STATE = "";
+
+    private final ChaincodeStub stub;
+
+    private final ChaincodeStub proxy;
+
+    private final Map<List<String>, byte[]> reads = new HashMap<>();
+
+    // a null value is a pending delete
+    private final Map<List<String>, byte[]> writes = new LinkedHashMap<>();
+
+    CachedStub(final ChaincodeStub stub) {
+        this.stub = stub;
+        this.proxy = (ChaincodeStub) Proxy.newProxyInstance(ChaincodeStub.class.getClassLoader(),
+                new Class<?>[] {ChaincodeStub.class}, this);
+    }
+
+    /**
+     * The caching view of the stub, to hand to the transaction functions.
+     */
+    ChaincodeStub getStub() {
+        return proxy;
+    }
+
+    /**
+     * Sends the pending writes to the peer, one call per key.
+     */
+    void flush() {
+        for (Map.Entry<List<String>, byte[]> write : writes.entrySet()) {
+            String collection = write.getKey().get(0);
+            String key = write.getKey().get(1);
+            byte[] value = write.getValue();
+            if (WORLD_STATE.equals(collection)) {
+                if (value == null) {
+                    stub.delState(key);
+                } else {
+                    stub.putState(key, value);
+                }
+            } else if (value == null) {
+                stub.delPrivateData(collection, key);
+            } else {
+                stub.putPrivateData(collection, key, value);
+            }
+        }
+        writes.clear();
+    }
+
+    @Override
+    public Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getState":
+                return read(WORLD_STATE, (String) args[0]);
+            case "putState":
+                write(WORLD_STATE, (String) args[0], (byte[]) args[1]);
+                return null;
+            case "delState":
+                write(WORLD_STATE, (String) args[0], null);
+                return null;
+            case "getPrivateData":
+                return read((String) args[0], (String) args[1]);
+            case "putPrivateData":
+                write((String) args[0], (String) args[1], (byte[]) args[2]);
+                return null;
+            case "delPrivateData":
+                write((String) args[0], (String) args[1], null);
+                return null;
+            case "equals":
+                return target == args[0];
+            case "hashCode":
+                return System.identityHashCode(target);
+            case "toString":
+                return "CachedStub[" + stub + "]";
+            default:
+                try {
+                    return method.invoke(stub, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+        }
+    }
+
+    private byte[] read(final String collection, final String key) {
+        List<String> cacheKey = Arrays.asList(collection, key);
+        // a missing key may read as null, which is cached like any other value
+        if (reads.containsKey(cacheKey)) {
+            return reads.get(cacheKey);
+        }
+        byte[] value = WORLD_STATE.equals(collection) ? stub.getState(key) : stub.getPrivateData(collection, key);
+        reads.put(cacheKey, value);
+        return value;
+    }
+
+    private void write(final String collection, final String key, final byte[] value) {
+        writes.put(Arrays.asList(collection, key), value);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.events;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.msp.Identities.SerializedIdentity;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * The calls that reach the peer's stub through a CachedStub, in the order they are made.
+ */
+public final class CachedStubTest {
+
+    private static final byte[] ONE = "1".getBytes(UTF_8);
+
+    private static final byte[] TWO = "2".getBytes(UTF_8);
+
+    private final ChaincodeStub stub = mock(ChaincodeStub.class);
+
+    private final CachedStub cache = new CachedStub(stub);
+
+    private final ChaincodeStub cached = cache.getStub();
+
+    @Nested
+    class Reads {
+
+        @Test
+        public void fetchEachKeyOnce() {
+            when(stub.getState("k")).thenReturn(ONE);
+
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+
+            verify(stub).getState("k");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void fetchAMissingKeyOnce() {
+            when(stub.getState("k")).thenReturn(new byte[0]);
+            when(stub.getPrivateData("c", "k")).thenReturn(null);
+
+            cached.getState("k");
+            cached.getState("k");
+            cached.getPrivateData("c", "k");
+            cached.getPrivateData("c", "k");
+
+            verify(stub).getState("k");
+            verify(stub).getPrivateData("c", "k");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void keepTheCommittedValueAfterAWrite() {
+            when(stub.getState("k")).thenReturn(ONE);
+
+            cached.putState("k", TWO);
+
+            // as on the peer, a transaction does not read its own writes
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+            verify(stub).getState("k");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void keepCollectionsApart() {
+            when(stub.getState("k")).thenReturn(ONE);
+            when(stub.getPrivateData("c", "k")).thenReturn(TWO);
+
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+            assertThat(cached.getPrivateData("c", "k")).isEqualTo(TWO);
+            assertThat(cached.getPrivateData("c", "k")).isEqualTo(TWO);
+            assertThat(cached.getPrivateData("d", "k")).isNull();
+
+            InOrder peer = inOrder(stub);
+            peer.verify(stub).getState("k");
+            peer.verify(stub).getPrivateData("c", "k");
+            peer.verify(stub).getPrivateData("d", "k");
+            verifyNoMoreInteractions(stub);
+        }
+    }
+
+    @Nested
+    class Writes {
+
+        @Test
+        public void waitForTheFlush() {
+            cached.putState("a", ONE);
+            cached.putState("b", TWO);
+            cached.delState("c");
+            cached.putPrivateData("p", "d", ONE);
+            cached.delPrivateData("p", "e");
+
+            verifyZeroInteractions(stub);
+        }
+
+        @Test
+        public void coalesceToTheLastValueOfEachKey() {
+            cached.putState("a", ONE);
+            cached.putState("a", TWO);
+            cached.putState("a", ONE);
+            cached.putState("a", TWO);
+
+            cache.flush();
+
+            verify(stub).putState("a", TWO);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void flushInTheOrderKeysWereFirstWritten() {
+            cached.putState("b", ONE);
+            cached.putState("a", ONE);
+            cached.delState("c");
+            cached.putState("b", TWO);
+
+            cache.flush();
+
+            InOrder peer = inOrder(stub);
+            peer.verify(stub).putState("b", TWO);
+            peer.verify(stub).putState("a", ONE);
+            peer.verify(stub).delState("c");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void sendOnlyTheDeleteAfterAPut() {
+            cached.putState("a", ONE);
+            cached.delState("a");
+
+            cache.flush();
+
+            verify(stub).delState("a");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void sendOnlyThePutAfterADelete() {
+            cached.delState("a");
+            cached.putState("a", ONE);
+
+            cache.flush();
+
+            verify(stub).putState("a", ONE);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void flushPrivateDataToItsCollection() {
+            cached.putPrivateData("p", "a", ONE);
+            cached.putState("a", TWO);
+            cached.putPrivateData("q", "a", TWO);
+            cached.delPrivateData("p", "a");
+
+            cache.flush();
+
+            InOrder peer = inOrder(stub);
+            peer.verify(stub).delPrivateData("p", "a");
+            peer.verify(stub).putState("a", TWO);
+            peer.verify(stub).putPrivateData("q", "a", TWO);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void flushOnlyOnce() {
+            cached.putState("a", ONE);
+            cache.flush();
+            clearInvocations(stub);
+
+            cache.flush();
+
+            verifyZeroInteractions(stub);
+        }
+    }
+
+    @Nested
+    class OtherMethods {
+
+        @Test
+        public void goStraightToThePeer() {
+            when(stub.getTxId()).thenReturn("tx1");
+            CompositeKey key = new CompositeKey("type", "a");
+            when(stub.createCompositeKey("type", "a")).thenReturn(key);
+
+            assertThat(cached.getTxId()).isEqualTo("tx1");
+            assertThat(cached.getTxId()).isEqualTo("tx1");
+            assertThat(cached.createCompositeKey("type", "a")).isSameAs(key);
+            cached.getStateByRange("a", "b");
+            cached.setEvent("e", ONE);
+
+            InOrder peer = inOrder(stub);
+            peer.verify(stub, times(2)).getTxId();
+            peer.verify(stub).createCompositeKey("type", "a");
+            peer.verify(stub).getStateByRange("a", "b");
+            peer.verify(stub).setEvent("e", ONE);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void throwWhatThePeerThrows() {
+            ChaincodeException failure = new ChaincodeException("no range");
+            when(stub.getStateByRange(anyString(), anyString())).thenThrow(failure);
+
+            Throwable thrown = catchThrowable(() -> cached.getStateByRange("a", "b"));
+
+            assertThat(thrown).isSameAs(failure);
+        }
+
+        @Test
+        public void identifyTheProxyItself() {
+            assertThat(cached).isEqualTo(cached);
+            assertThat(cached).isNotEqualTo(stub);
+            assertThat(cached.hashCode()).isEqualTo(System.identityHashCode(cached));
+            assertThat(cached.toString()).startsWith("CachedStub[");
+
+            verifyZeroInteractions(stub);
+        }
+    }
+
+    @Test
+    public void afterTransactionFlushesTheWritesOfTheTransaction() {
+        ChaincodeStub peer = mock(ChaincodeStub.class);
+        when(peer.getCreator()).thenReturn(creator());
+        when(peer.getMspId()).thenReturn("Org1MSP");
+        when(peer.getState("asset1")).thenReturn(new byte[0]);
+        when(peer.getTransient()).thenReturn(Collections.singletonMap(AssetTransfer.PRIVATE_PROPS_KEY, ONE));
+        AssetTransfer contract = new AssetTransfer();
+
+        Context ctx = contract.createContext(peer);
+        contract.CreateAsset(ctx, "asset1", "blue", 5, "tom", 300);
+
+        verify(peer, never()).putState(anyString(), any(byte[].class));
+        verify(peer, never()).putPrivateData(anyString(), anyString(), any(byte[].class));
+
+        contract.afterTransaction(ctx, null);
+
+        InOrder order = inOrder(peer);
+        order.verify(peer).getState("asset1");
+        order.verify(peer).setEvent(eq("CreateAsset"), any(byte[].class));
+        order.verify(peer).putPrivateData("_implicit_org_Org1MSP", "asset1", ONE);
+        order.verify(peer).putState(eq("asset1"), any(byte[].class));
+    }
+
+    private static byte[] creator() {
+        try (InputStream certificate = CachedStubTest.class.getResourceAsStream("/client.pem")) {
+            return SerializedIdentity.newBuilder()
+                    .setMspid("Org1MSP")
+                    .setIdBytes(ByteString.readFrom(certificate))
+                    .build()
+                    .toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
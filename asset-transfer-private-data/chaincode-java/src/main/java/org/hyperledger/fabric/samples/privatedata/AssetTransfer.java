@@ -26,6 +26,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Main Chaincode class. A ContractInterface gets converted to Chaincode internally.
@@ -60,6 +62,8 @@ import java.util.Map;
 @Default
 public final class AssetTransfer implements ContractInterface {
 
+    private static final Logger LOG = Logger.getLogger(AssetTransfer.class.getName());
+
     static final String ASSET_COLLECTION_NAME = "assetCollection";
     static final String AGREEMENT_KEYPREFIX = "transferAgreement";
 
@@ -80,11 +84,15 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset ReadAsset(final Context ctx, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("ReadAsset: collection %s, ID %s\n", ASSET_COLLECTION_NAME, assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("ReadAsset: collection %s, ID %s", ASSET_COLLECTION_NAME, assetID));
+        }
         byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         if (assetJSON == null || assetJSON.length == 0) {
-            System.out.printf("Asset not found: ID %s\n", assetID);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("Asset not found: ID %s", assetID));
+            }
             return null;
         }
 
@@ -103,12 +111,15 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public AssetPrivateDetails ReadAssetPrivateDetails(final Context ctx, final String collection, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("ReadAssetPrivateDetails: collection %s, ID %s\n", collection, assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("ReadAssetPrivateDetails: collection %s, ID %s", collection, assetID));
+        }
         byte[] assetPrvJSON = stub.getPrivateData(collection, assetID);
 
         if (assetPrvJSON == null || assetPrvJSON.length == 0) {
-            String errorMessage = String.format("AssetPrivateDetails %s does not exist in collection %s", assetID, collection);
-            System.out.println(errorMessage);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("AssetPrivateDetails %s does not exist in collection %s", assetID, collection));
+            }
             return null;
         }
 
@@ -128,12 +139,15 @@ public final class AssetTransfer implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
 
         CompositeKey aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID);
-        System.out.printf("ReadTransferAgreement Get: collection %s, ID %s, Key %s\n", ASSET_COLLECTION_NAME, assetID, aggKey);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("ReadTransferAgreement Get: collection %s, ID %s, Key %s", ASSET_COLLECTION_NAME, assetID, aggKey));
+        }
         byte[] buyerIdentity = stub.getPrivateData(ASSET_COLLECTION_NAME, aggKey.toString());
 
         if (buyerIdentity == null || buyerIdentity.length == 0) {
-            String errorMessage = String.format("BuyerIdentity for asset %s does not exist in TransferAgreement ", assetID);
-            System.out.println(errorMessage);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine(String.format("BuyerIdentity for asset %s does not exist in TransferAgreement ", assetID));
+            }
             return null;
         }
 
@@ -154,21 +168,25 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset[] GetAssetByRange(final Context ctx, final String startKey, final String endKey) throws Exception {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("GetAssetByRange: start %s, end %s\n", startKey, endKey);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("GetAssetByRange: start %s, end %s", startKey, endKey));
+        }
 
         List<Asset> queryResults = new ArrayList<>();
         // retrieve asset with keys between startKey (inclusive) and endKey(exclusive) in lexical order.
         try (QueryResultsIterator<KeyValue> results = stub.getPrivateDataByRange(ASSET_COLLECTION_NAME, startKey, endKey)) {
             for (KeyValue result : results) {
                 if (result.getStringValue() == null || result.getStringValue().length() == 0) {
-                    System.err.printf("Invalid Asset json: %s\n", result.getStringValue());
+                    LOG.warning(String.format("Invalid Asset json for key %s", result.getKey()));
                     continue;
                 }
                 Asset asset = Asset.deserialize(result.getStringValue());
                 queryResults.add(asset);
-                System.out.println("QueryResult: " + asset.toString());
             }
         }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("GetAssetByRange: %d assets", queryResults.size()));
+        }
         return queryResults.toArray(new Asset[0]);
     }
 
@@ -217,21 +235,25 @@ public final class AssetTransfer implements ContractInterface {
 
     private Asset[] getQueryResult(final Context ctx, final String queryString) throws Exception {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("QueryAssets: %s\n", queryString);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("QueryAssets: %s", queryString));
+        }
 
         List<Asset> queryResults = new ArrayList<Asset>();
         // retrieve asset with keys between startKey (inclusive) and endKey(exclusive) in lexical order.
         try (QueryResultsIterator<KeyValue> results = stub.getPrivateDataQueryResult(ASSET_COLLECTION_NAME, queryString)) {
             for (KeyValue result : results) {
                 if (result.getStringValue() == null || result.getStringValue().length() == 0) {
-                    System.err.printf("Invalid Asset json: %s\n", result.getStringValue());
+                    LOG.warning(String.format("Invalid Asset json for key %s", result.getKey()));
                     continue;
                 }
                 Asset asset = Asset.deserialize(result.getStringValue());
                 queryResults.add(asset);
-                System.out.println("QueryResult: " + asset.toString());
             }
         }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("QueryAssets: %d assets", queryResults.size()));
+        }
         return queryResults.toArray(new Asset[0]);
     }
 
@@ -250,7 +272,7 @@ public final class AssetTransfer implements ContractInterface {
         Map<String, byte[]> transientMap = ctx.getStub().getTransient();
         if (!transientMap.containsKey("asset_properties")) {
             String errorMessage = String.format("CreateAsset call must specify asset_properties in Transient map input");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -275,7 +297,7 @@ public final class AssetTransfer implements ContractInterface {
             }
         } catch (Exception err) {
             String errorMessage = String.format("TransientMap deserialized error: %s ", err);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -298,7 +320,7 @@ public final class AssetTransfer implements ContractInterface {
         }
 
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -307,7 +329,7 @@ public final class AssetTransfer implements ContractInterface {
         byte[] assetJSON = ctx.getStub().getPrivateData(ASSET_COLLECTION_NAME, assetID);
         if (assetJSON != null && assetJSON.length > 0) {
             errorMessage = String.format("Asset %s already exists", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
@@ -321,8 +343,9 @@ public final class AssetTransfer implements ContractInterface {
 
         //Make submitting client the owner
         asset.setOwner(clientID);
-        System.out.printf("CreateAsset Put: collection %s, ID %s\n", ASSET_COLLECTION_NAME, assetID);
-        System.out.printf("Put: collection %s, ID %s\n", ASSET_COLLECTION_NAME, new String(asset.serialize()));
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("CreateAsset Put: collection %s, ID %s", ASSET_COLLECTION_NAME, assetID));
+        }
         stub.putPrivateData(ASSET_COLLECTION_NAME, assetID, asset.serialize());
 
         // Get collection name for this organization.
@@ -330,7 +353,9 @@ public final class AssetTransfer implements ContractInterface {
 
         //Save AssetPrivateDetails to org collection
         AssetPrivateDetails assetPriv = new AssetPrivateDetails(assetID, appraisedValue);
-        System.out.printf("Put AssetPrivateDetails: collection %s, ID %s\n", orgCollectionName, assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Put AssetPrivateDetails: collection %s, ID %s", orgCollectionName, assetID));
+        }
         stub.putPrivateData(orgCollectionName, assetID, assetPriv.serialize());
 
         return asset;
@@ -351,7 +376,7 @@ public final class AssetTransfer implements ContractInterface {
         Map<String, byte[]> transientMap = ctx.getStub().getTransient();
         if (!transientMap.containsKey("asset_value")) {
             String errorMessage = String.format("AgreeToTransfer call must specify \"asset_value\" in Transient map input");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -366,25 +391,27 @@ public final class AssetTransfer implements ContractInterface {
             assetPriv = new AssetPrivateDetails(assetID, appraisedValue);
         } catch (Exception err) {
             String errorMessage = String.format("TransientMap deserialized error %s ", err);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
         if (assetID.equals("")) {
             String errorMessage = String.format("Invalid input in Transient map: assetID");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         if (assetPriv.getAppraisedValue() <= 0) { // appraisedValue field must be a positive integer
             String errorMessage = String.format("Input must be positive integer: appraisedValue");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
-        System.out.printf("AgreeToTransfer: verify asset %s exists\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("AgreeToTransfer: verify asset %s exists", assetID));
+        }
         Asset existing = ReadAsset(ctx, assetID);
         if (existing == null) {
             String errorMessage = String.format("Asset does not exist in the collection: ", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         // Get collection name for this organization.
@@ -393,13 +420,17 @@ public final class AssetTransfer implements ContractInterface {
         verifyClientOrgMatchesPeerOrg(ctx);
 
         //Save AssetPrivateDetails to org collection
-        System.out.printf("Put AssetPrivateDetails: collection %s, ID %s\n", orgCollectionName, assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Put AssetPrivateDetails: collection %s, ID %s", orgCollectionName, assetID));
+        }
         stub.putPrivateData(orgCollectionName, assetID, assetPriv.serialize());
 
         String clientID = ctx.getClientIdentity().getId();
         //Write the AgreeToTransfer key in assetCollection
         CompositeKey aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID);
-        System.out.printf("AgreeToTransfer Put: collection %s, ID %s, Key %s\n", ASSET_COLLECTION_NAME, assetID, aggKey);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("AgreeToTransfer Put: collection %s, ID %s, Key %s", ASSET_COLLECTION_NAME, assetID, aggKey));
+        }
         stub.putPrivateData(ASSET_COLLECTION_NAME, aggKey.toString(), clientID);
     }
 
@@ -416,7 +447,7 @@ public final class AssetTransfer implements ContractInterface {
         Map<String, byte[]> transientMap = ctx.getStub().getTransient();
         if (!transientMap.containsKey("asset_owner")) {
             String errorMessage = "TransferAsset call must specify \"asset_owner\" in Transient map input";
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -430,27 +461,29 @@ public final class AssetTransfer implements ContractInterface {
 
         } catch (Exception err) {
             String errorMessage = String.format("TransientMap deserialized error %s ", err);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
         if (assetID.equals("")) {
             String errorMessage = String.format("Invalid input in Transient map: " + "assetID");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         if (buyerMSP.equals("")) {
             String errorMessage = String.format("Invalid input in Transient map: " + "buyerMSP");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
-        System.out.printf("TransferAsset: verify asset %s exists\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("TransferAsset: verify asset %s exists", assetID));
+        }
         byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         if (assetJSON == null || assetJSON.length == 0) {
             String errorMessage = String.format("Asset %s does not exist in the collection", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -462,7 +495,7 @@ public final class AssetTransfer implements ContractInterface {
         TransferAgreement transferAgreement = ReadTransferAgreement(ctx, assetID);
         if (transferAgreement == null) {
             String errorMessage = String.format("TransferAgreement does not exist for asset: %s", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -471,7 +504,9 @@ public final class AssetTransfer implements ContractInterface {
         thisAsset.setOwner(newOwner);
 
         //Save updated Asset to collection
-        System.out.printf("Transfer Asset: collection %s, ID %s to owner %s\n", ASSET_COLLECTION_NAME, assetID, newOwner);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Transfer Asset: collection %s, ID %s to owner %s", ASSET_COLLECTION_NAME, assetID, newOwner));
+        }
         stub.putPrivateData(ASSET_COLLECTION_NAME, assetID, thisAsset.serialize());
 
         // delete the key from owners collection
@@ -480,7 +515,9 @@ public final class AssetTransfer implements ContractInterface {
 
         //Delete the transfer agreement from the asset collection
         CompositeKey aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID);
-        System.out.printf("AgreeToTransfer deleteKey: collection %s, ID %s, Key %s\n", ASSET_COLLECTION_NAME, assetID, aggKey);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("AgreeToTransfer deleteKey: collection %s, ID %s, Key %s", ASSET_COLLECTION_NAME, assetID, aggKey));
+        }
         stub.delPrivateData(ASSET_COLLECTION_NAME, aggKey.toString());
     }
 
@@ -496,7 +533,7 @@ public final class AssetTransfer implements ContractInterface {
         Map<String, byte[]> transientMap = ctx.getStub().getTransient();
         if (!transientMap.containsKey("asset_delete")) {
             String errorMessage = String.format("DeleteAsset call must specify 'asset_delete' in Transient map input");
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
@@ -509,16 +546,18 @@ public final class AssetTransfer implements ContractInterface {
 
         } catch (Exception err) {
             String errorMessage = String.format("TransientMap deserialized error: %s ", err);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
-        System.out.printf("DeleteAsset: verify asset %s exists\n", assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("DeleteAsset: verify asset %s exists", assetID));
+        }
         byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         if (assetJSON == null || assetJSON.length == 0) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
         String ownersCollectionName = getCollectionName(ctx);
@@ -526,13 +565,15 @@ public final class AssetTransfer implements ContractInterface {
 
         if (apdJSON == null || apdJSON.length == 0) {
             String errorMessage = String.format("Failed to read asset from owner's Collection %s", ownersCollectionName);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
         verifyClientOrgMatchesPeerOrg(ctx);
 
         // delete the key from asset collection
-        System.out.printf("DeleteAsset: collection %s, ID %s\n", ASSET_COLLECTION_NAME, assetID);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("DeleteAsset: collection %s, ID %s", ASSET_COLLECTION_NAME, assetID));
+        }
         stub.delPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         // Finally, delete private details of asset
@@ -577,7 +618,7 @@ public final class AssetTransfer implements ContractInterface {
 
         if (!peerMSPID.equals(clientMSPID)) {
             String errorMessage = String.format("Client from org %s is not authorized to read or write private data from an org %s peer", clientMSPID, peerMSPID);
-            System.err.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ACCESS.toString());
         }
     }
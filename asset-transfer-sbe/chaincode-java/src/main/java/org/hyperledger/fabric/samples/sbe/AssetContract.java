@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.logging.Logger;
 
 @Contract(
         name = "sbe",
@@ -37,6 +38,8 @@ import java.util.List;
 @Default
 public final class AssetContract implements ContractInterface {
 
+    private static final Logger LOG = Logger.getLogger(AssetContract.class.getName());
+
     private final Genson genson = new Genson();
 
     private enum AssetTransferErrors {
@@ -44,6 +47,18 @@ public final class AssetContract implements ContractInterface {
         ASSET_ALREADY_EXISTS
     }
 
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new CachingContext(stub);
+    }
+
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        if (ctx instanceof CachingContext) {
+            ((CachingContext) ctx).flush();
+        }
+    }
+
     /**
      * Creates a new asset.
      * Sets the endorsement policy of the assetId Key, such that current owner Org Peer is required to endorse future updates.
@@ -61,7 +76,7 @@ public final class AssetContract implements ContractInterface {
 
         if (AssetExists(ctx, assetId)) {
             String errorMessage = String.format("Asset %s already exists", assetId);
-            System.out.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
@@ -93,7 +108,7 @@ public final class AssetContract implements ContractInterface {
 
         if (assetJSON == null || assetJSON.isEmpty()) {
             String errorMessage = String.format("Asset %s does not exist", assetId);
-            System.out.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
@@ -135,7 +150,7 @@ public final class AssetContract implements ContractInterface {
 
         if (!AssetExists(ctx, assetId)) {
             String errorMessage = String.format("Asset %s does not exist", assetId);
-            System.out.println(errorMessage);
+            LOG.warning(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
@@ -230,7 +245,7 @@ public final class AssetContract implements ContractInterface {
      * @param nOrgs the number of Org principals signatures required to endorse (out of the provided list of Orgs)
      * @param mspids the list of Owner Org MSPID's
      */
-    private static byte[] policy(final int nOrgs, final List<String> mspids) {
+    static byte[] policy(final int nOrgs, final List<String> mspids) {
         mspids.sort(Comparator.naturalOrder());
         final List<MspPrincipal.MSPPrincipal> principals = new ArrayList<>();
         final List<Policies.SignaturePolicy> signPolicy = new ArrayList<>();
@@ -0,0 +1,245 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.sbe;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPPrincipal;
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPRole;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicy;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicyEnvelope;
+import org.hyperledger.fabric.protos.msp.Identities.SerializedIdentity;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+public final class AssetContractTest {
+
+    private final AssetContract contract = new AssetContract();
+
+    private final Map<String, byte[]> state = new HashMap<>();
+
+    // key -> endorsement policy set on it
+    private final Map<String, byte[]> policies = new HashMap<>();
+
+    private final ChaincodeStub stub = mock(ChaincodeStub.class);
+
+    {
+        when(stub.getCreator()).thenReturn(creator());
+        when(stub.getState(anyString())).thenAnswer(invocation -> state.getOrDefault(invocation.getArgument(0), new byte[0]));
+        doAnswer(invocation -> state.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(stub).putState(anyString(), any(byte[].class));
+        doAnswer(invocation -> state.remove(invocation.<String>getArgument(0)))
+                .when(stub).delState(anyString());
+        doAnswer(invocation -> policies.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(stub).setStateValidationParameter(anyString(), any(byte[].class));
+    }
+
+    /**
+     * Runs a transaction function the way the contract router does, flushing its writes afterwards.
+     */
+    private <T> T submit(final TxFunction<T> function) {
+        Context ctx = contract.createContext(stub);
+        T result = function.run(ctx);
+        contract.afterTransaction(ctx, result);
+        return result;
+    }
+
+    private void createAsset(final String assetId, final int value, final String owner) {
+        submit(ctx -> contract.CreateAsset(ctx, assetId, value, owner));
+    }
+
+    private String read(final String assetId) {
+        return new String(state.get(assetId), UTF_8);
+    }
+
+    private static void assertError(final Throwable thrown, final String message, final String error) {
+        assertThat(thrown).isInstanceOf(ChaincodeException.class).hasMessage(message);
+        assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo(error.getBytes(UTF_8));
+    }
+
+    /**
+     * MSP IDs whose members a signature policy envelope accepts.
+     */
+    private static List<String> orgs(final byte[] policy) throws InvalidProtocolBufferException {
+        List<String> orgs = new ArrayList<>();
+        for (MSPPrincipal principal : SignaturePolicyEnvelope.parseFrom(policy).getIdentitiesList()) {
+            MSPRole role = MSPRole.parseFrom(principal.getPrincipal());
+            assertThat(role.getRole()).isEqualTo(MSPRole.MSPRoleType.MEMBER);
+            orgs.add(role.getMspIdentifier());
+        }
+        return orgs;
+    }
+
+    @Nested
+    class CreateAssetTransaction {
+
+        @Test
+        public void storesTheAssetOwnedByTheClientOrg() throws Exception {
+            Asset asset = submit(ctx -> contract.CreateAsset(ctx, "asset1", 100, "Tom"));
+
+            assertThat(asset).isEqualTo(new Asset("asset1", 100, "Tom", "Org1MSP"));
+            assertThat(read("asset1")).isEqualTo("{\"ID\":\"asset1\",\"Owner\":\"Tom\",\"OwnerOrg\":\"Org1MSP\",\"Value\":100}");
+            assertThat(orgs(policies.get("asset1"))).containsExactly("Org1MSP");
+        }
+
+        @Test
+        public void whenAssetExists() {
+            createAsset("asset1", 100, "Tom");
+
+            Throwable thrown = catchThrowable(() -> submit(ctx -> contract.CreateAsset(ctx, "asset1", 5, "Sam")));
+
+            assertError(thrown, "Asset asset1 already exists", "ASSET_ALREADY_EXISTS");
+            assertThat(read("asset1")).contains("\"Owner\":\"Tom\"");
+        }
+    }
+
+    @Nested
+    class ReadAssetTransaction {
+
+        @Test
+        public void returnsTheStoredJson() {
+            createAsset("asset1", 100, "Tom");
+
+            String json = submit(ctx -> contract.ReadAsset(ctx, "asset1"));
+
+            assertThat(json).isEqualTo(read("asset1"));
+        }
+
+        @Test
+        public void whenAssetDoesNotExist() {
+            Throwable thrown = catchThrowable(() -> submit(ctx -> contract.ReadAsset(ctx, "asset1")));
+
+            assertError(thrown, "Asset asset1 does not exist", "ASSET_NOT_FOUND");
+        }
+    }
+
+    @Nested
+    class UpdateAssetTransaction {
+
+        @Test
+        public void changesOnlyTheValue() {
+            createAsset("asset1", 100, "Tom");
+
+            Asset asset = submit(ctx -> contract.UpdateAsset(ctx, "asset1", 200));
+
+            assertThat(asset).isEqualTo(new Asset("asset1", 200, "Tom", "Org1MSP"));
+            assertThat(read("asset1")).contains("\"Value\":200", "\"Owner\":\"Tom\"");
+        }
+    }
+
+    @Nested
+    class TransferAssetTransaction {
+
+        @Test
+        public void movesTheEndorsementPolicyToTheNewOwnerOrg() throws Exception {
+            createAsset("asset1", 100, "Tom");
+
+            Asset asset = submit(ctx -> contract.TransferAsset(ctx, "asset1", "Sam", "Org2MSP"));
+
+            assertThat(asset).isEqualTo(new Asset("asset1", 100, "Sam", "Org2MSP"));
+            assertThat(read("asset1")).contains("\"Owner\":\"Sam\"", "\"OwnerOrg\":\"Org2MSP\"");
+            assertThat(orgs(policies.get("asset1"))).containsExactly("Org2MSP");
+        }
+
+        @Test
+        public void whenAssetDoesNotExist() {
+            Throwable thrown = catchThrowable(() -> submit(ctx -> contract.TransferAsset(ctx, "asset1", "Sam", "Org2MSP")));
+
+            assertError(thrown, "Asset asset1 does not exist", "ASSET_NOT_FOUND");
+            assertThat(policies).isEmpty();
+        }
+    }
+
+    @Nested
+    class DeleteAssetTransaction {
+
+        @Test
+        public void removesTheAsset() {
+            createAsset("asset1", 100, "Tom");
+
+            submit(ctx -> {
+                contract.DeleteAsset(ctx, "asset1");
+                return null;
+            });
+
+            assertThat(state).doesNotContainKey("asset1");
+        }
+
+        @Test
+        public void whenAssetDoesNotExist() {
+            Throwable thrown = catchThrowable(() -> submit(ctx -> {
+                contract.DeleteAsset(ctx, "asset1");
+                return null;
+            }));
+
+            assertError(thrown, "Asset asset1 does not exist", "ASSET_NOT_FOUND");
+        }
+    }
+
+    @Test
+    public void policyRequiresNOutOfTheSortedOrgs() throws Exception {
+        byte[] policy = AssetContract.policy(1, new ArrayList<>(Arrays.asList("Org2MSP", "Org1MSP", "Org3MSP")));
+
+        assertThat(orgs(policy)).containsExactly("Org1MSP", "Org2MSP", "Org3MSP");
+        SignaturePolicy rule = SignaturePolicyEnvelope.parseFrom(policy).getRule();
+        assertThat(rule.getNOutOf().getN()).isEqualTo(1);
+        assertThat(rule.getNOutOf().getRulesList()).extracting(SignaturePolicy::getSignedBy).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void assetsCompareAllFields() {
+        Asset asset = new Asset("asset1", 100, "Tom", "Org1MSP");
+
+        assertThat(asset).isEqualTo(asset);
+        assertThat(asset).isEqualTo(new Asset("asset1", 100, "Tom", "Org1MSP"));
+        assertThat(asset).hasSameHashCodeAs(new Asset("asset1", 100, "Tom", "Org1MSP"));
+        assertThat(asset).isNotEqualTo(new Asset("asset2", 100, "Tom", "Org1MSP"));
+        assertThat(asset).isNotEqualTo(new Asset("asset1", 101, "Tom", "Org1MSP"));
+        assertThat(asset).isNotEqualTo(new Asset("asset1", 100, "Sam", "Org1MSP"));
+        assertThat(asset).isNotEqualTo(new Asset("asset1", 100, "Tom", "Org2MSP"));
+        assertThat(asset).isNotEqualTo(null);
+        assertThat(asset).isNotEqualTo("asset1");
+        assertThat(asset.toString()).isEqualTo("Asset{ID='asset1', Value=100, Owner='Tom', OwnerOrg='Org1MSP'}");
+    }
+
+    private static byte[] creator() {
+        try (InputStream certificate = AssetContractTest.class.getResourceAsStream("/client.pem")) {
+            return SerializedIdentity.newBuilder()
+                    .setMspid("Org1MSP")
+                    .setIdBytes(ByteString.readFrom(certificate))
+                    .build()
+                    .toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TxFunction<T> {
+        T run(Context ctx);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.sbe;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.msp.Identities.SerializedIdentity;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * The calls that reach the peer's stub through a CachedStub, in the order they are made.
+ */
+public final class CachedStubTest {
+
+    private static final byte[] ONE = "1".getBytes(UTF_8);
+
+    private static final byte[] TWO = "2".getBytes(UTF_8);
+
+    private final ChaincodeStub stub = mock(ChaincodeStub.class);
+
+    private final CachedStub cache = new CachedStub(stub);
+
+    private final ChaincodeStub cached = cache.getStub();
+
+    @Nested
+    class Reads {
+
+        @Test
+        public void fetchEachKeyOnce() {
+            when(stub.getState("k")).thenReturn(ONE);
+
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+            assertThat(cached.getStringState("k")).isEqualTo("1");
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+
+            verify(stub).getState("k");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void fetchAMissingKeyOnce() {
+            when(stub.getState("k")).thenReturn(new byte[0]);
+            when(stub.getState("n")).thenReturn(null);
+
+            assertThat(cached.getStringState("k")).isEmpty();
+            assertThat(cached.getState("k")).isEmpty();
+            assertThat(cached.getStringState("n")).isNull();
+            assertThat(cached.getState("n")).isNull();
+
+            verify(stub).getState("k");
+            verify(stub).getState("n");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void keepTheCommittedValueAfterAWrite() {
+            when(stub.getState("k")).thenReturn(ONE);
+
+            cached.putState("k", TWO);
+
+            // as on the peer, a transaction does not read its own writes
+            assertThat(cached.getState("k")).isEqualTo(ONE);
+            verify(stub).getState("k");
+            verifyNoMoreInteractions(stub);
+        }
+    }
+
+    @Nested
+    class Writes {
+
+        @Test
+        public void waitForTheFlush() {
+            cached.putState("a", ONE);
+            cached.putStringState("b", "2");
+            cached.delState("c");
+
+            verifyZeroInteractions(stub);
+        }
+
+        @Test
+        public void coalesceToTheLastValueOfEachKey() {
+            cached.putState("a", ONE);
+            cached.putStringState("a", "2");
+            cached.putState("a", ONE);
+            cached.putState("a", TWO);
+
+            cache.flush();
+
+            verify(stub).putState("a", TWO);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void flushInTheOrderKeysWereFirstWritten() {
+            cached.putState("b", ONE);
+            cached.putState("a", ONE);
+            cached.delState("c");
+            cached.putState("b", TWO);
+
+            cache.flush();
+
+            InOrder peer = inOrder(stub);
+            peer.verify(stub).putState("b", TWO);
+            peer.verify(stub).putState("a", ONE);
+            peer.verify(stub).delState("c");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void sendOnlyTheDeleteAfterAPut() {
+            cached.putState("a", ONE);
+            cached.delState("a");
+
+            cache.flush();
+
+            verify(stub).delState("a");
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void sendOnlyThePutAfterADelete() {
+            cached.delState("a");
+            cached.putStringState("a", "1");
+
+            cache.flush();
+
+            verify(stub).putState("a", ONE);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void flushOnlyOnce() {
+            cached.putState("a", ONE);
+            cache.flush();
+            clearInvocations(stub);
+
+            cache.flush();
+
+            verifyZeroInteractions(stub);
+        }
+    }
+
+    @Nested
+    class OtherMethods {
+
+        @Test
+        public void goStraightToThePeer() {
+            when(stub.getTxId()).thenReturn("tx1");
+            CompositeKey key = new CompositeKey("type", "a");
+            when(stub.createCompositeKey("type", "a")).thenReturn(key);
+
+            assertThat(cached.getTxId()).isEqualTo("tx1");
+            assertThat(cached.getTxId()).isEqualTo("tx1");
+            assertThat(cached.createCompositeKey("type", "a")).isSameAs(key);
+            cached.getStateByRange("a", "b");
+            cached.setEvent("e", ONE);
+
+            InOrder peer = inOrder(stub);
+            peer.verify(stub, times(2)).getTxId();
+            peer.verify(stub).createCompositeKey("type", "a");
+            peer.verify(stub).getStateByRange("a", "b");
+            peer.verify(stub).setEvent("e", ONE);
+            verifyNoMoreInteractions(stub);
+        }
+
+        @Test
+        public void throwWhatThePeerThrows() {
+            ChaincodeException failure = new ChaincodeException("no range");
+            when(stub.getStateByRange(anyString(), anyString())).thenThrow(failure);
+
+            Throwable thrown = catchThrowable(() -> cached.getStateByRange("a", "b"));
+
+            assertThat(thrown).isSameAs(failure);
+        }
+
+        @Test
+        public void identifyTheProxyItself() {
+            assertThat(cached).isEqualTo(cached);
+            assertThat(cached).isNotEqualTo(stub);
+            assertThat(cached.hashCode()).isEqualTo(System.identityHashCode(cached));
+            assertThat(cached.toString()).startsWith("CachedStub[");
+
+            verifyZeroInteractions(stub);
+        }
+    }
+
+    @Test
+    public void afterTransactionFlushesTheWritesOfTheTransaction() {
+        ChaincodeStub peer = mock(ChaincodeStub.class);
+        when(peer.getCreator()).thenReturn(creator());
+        when(peer.getState("asset1")).thenReturn(new byte[0]);
+        AssetContract contract = new AssetContract();
+
+        Context ctx = contract.createContext(peer);
+        contract.CreateAsset(ctx, "asset1", 100, "Tom");
+
+        verify(peer, never()).putState(anyString(), any(byte[].class));
+
+        contract.afterTransaction(ctx, null);
+
+        // the endorsement policy is not cached, only the value waits for the flush
+        InOrder order = inOrder(peer);
+        order.verify(peer).getState("asset1");
+        order.verify(peer).setStateValidationParameter(eq("asset1"), any(byte[].class));
+        order.verify(peer).putState(eq("asset1"), any(byte[].class));
+        verify(peer, never()).putStringState(anyString(), anyString());
+    }
+
+    private static byte[] creator() {
+        try (InputStream certificate = CachedStubTest.class.getResourceAsStream("/client.pem")) {
+            return SerializedIdentity.newBuilder()
+                    .setMspid("Org1MSP")
+                    .setIdBytes(ByteString.readFrom(certificate))
+                    .build()
+                    .toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
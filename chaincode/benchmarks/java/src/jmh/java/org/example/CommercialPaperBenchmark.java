@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.example.ledgerapi.State;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * The reflective JSONObject serialization commercial paper uses for every state.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CommercialPaperBenchmark {
+
+    private CommercialPaper paper;
+
+    private byte[] paperJSON;
+
+    /**
+     * Builds a trading paper as the tutorial's buy transaction leaves it.
+     */
+    @Setup
+    public final void setUp() {
+        paper = CommercialPaper.createInstance("MagnetoCorp", "00001", "2020-05-31", "2020-11-30", 5000000,
+                "DigiBank", CommercialPaper.TRADING);
+        paperJSON = State.serialize(paper);
+    }
+
+    /**
+     * State.serialize, used by StateList.addState and updateState.
+     */
+    @Benchmark
+    public final byte[] serialize() {
+        return State.serialize(paper);
+    }
+
+    /**
+     * Deserialization as in StateList.getState.
+     */
+    @Benchmark
+    public final CommercialPaper deserialize() {
+        return CommercialPaper.deserialize(paperJSON);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+
+/**
+ * Account records of the basic chaincode, as JSON and as AccountCodec binary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountBenchmark {
+
+    @Param({"false", "true"})
+    private boolean binary;
+
+    private final Genson genson = new GensonBuilder().setSkipNull(true).create();
+
+    private Account account;
+
+    private byte[] record;
+
+    private byte[] balanceRecord;
+
+    /**
+     * Builds an account with an RSA-2048 sized public key, 294 bytes of DER.
+     */
+    @Setup
+    public final void setUp() {
+        byte[] key = new byte[294];
+        new Random(1).nextBytes(key);
+        account = new Account("account-000042", 1_250_000_000L, Base64.getEncoder().encodeToString(key));
+        record = AccountState.encode(genson, account, binary);
+        balanceRecord = AccountState.encode(genson, new Account(account.getAccountID(), account.getBalance(), null), binary);
+    }
+
+    /**
+     * CreateAccount's encoding of a whole account.
+     */
+    @Benchmark
+    public final byte[] encodeAccount() {
+        return AccountState.encode(genson, account, binary);
+    }
+
+    /**
+     * ReadAccount's decoding of a whole account.
+     */
+    @Benchmark
+    public final Account decodeAccount() {
+        return new AccountState(genson, record).toAccount();
+    }
+
+    /**
+     * The read-modify-write of a balance record done for each side of a Send.
+     */
+    @Benchmark
+    public final byte[] updateBalance() {
+        AccountState state = new AccountState(genson, balanceRecord);
+        return state.withBalance(state.getBalance() + 1, binary);
+    }
+}
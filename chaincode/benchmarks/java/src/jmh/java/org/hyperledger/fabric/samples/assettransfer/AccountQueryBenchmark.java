@@ -0,0 +1,88 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.samples.benchmarks.ContractDispatcher;
+import org.hyperledger.fabric.samples.benchmarks.Invocation;
+import org.hyperledger.fabric.samples.benchmarks.MemoryIdentity;
+import org.hyperledger.fabric.samples.benchmarks.MemoryLedger;
+import org.hyperledger.fabric.samples.benchmarks.MemoryStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+
+/**
+ * GetAllAccounts and GetAccountsWithPagination of the basic chaincode against an in-memory
+ * ledger. A page reads only its range of account records, GetAllAccounts also scans all public
+ * keys and deltas once. embeddedKeys=true stores accounts the way they were before the public
+ * key got its own key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountQueryBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000"})
+    private int accounts;
+
+    @Param({"false", "true"})
+    private boolean embeddedKeys;
+
+    private final Genson genson = new GensonBuilder().setSkipNull(true).create();
+
+    private final MemoryIdentity client = MemoryIdentity.create("Org1MSP", "appUser");
+
+    private final MemoryLedger ledger = new MemoryLedger();
+
+    private final ContractDispatcher dispatcher = new ContractDispatcher(new AssetTransfer());
+
+    /**
+     * Creates the accounts, each with an RSA-2048 sized public key.
+     */
+    @Setup
+    public final void setUp() throws Exception {
+        String publicKey = new String(new char[392]).replace('\0', 'A');
+        for (int i = 0; i < accounts; i++) {
+            String accountID = String.format("account%06d", i);
+            if (embeddedKeys) {
+                MemoryStub stub = new MemoryStub(ledger, "setup" + i, new Invocation(client, "CreateAccount"));
+                stub.putStringState(accountID, genson.serialize(new Account(accountID, 1_000_000_000L, publicKey)));
+                ledger.commit(stub.getReadWriteSet());
+            } else {
+                ledger.commit(dispatcher.endorse(ledger,
+                        new Invocation(client, "CreateAccount", accountID, "1000000000", publicKey)).getReadWriteSet());
+            }
+        }
+    }
+
+    /**
+     * A full scan, reading every account.
+     */
+    @Benchmark
+    public final Object getAllAccounts() throws Exception {
+        return dispatcher.invoke(new MemoryStub(ledger, "query", new Invocation(client, "GetAllAccounts")));
+    }
+
+    /**
+     * The first page of accounts.
+     */
+    @Benchmark
+    public final Object getAccountsPage() throws Exception {
+        return dispatcher.invoke(new MemoryStub(ledger, "query",
+                new Invocation(client, "GetAccountsWithPagination", Integer.toString(PAGE_SIZE), "")));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The org.json serialization of the events sample's assets, with and without
+ * the private properties ReadAsset merges in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AssetBenchmark {
+
+    private Asset asset;
+
+    private byte[] assetJSON;
+
+    private String privateProps;
+
+    /**
+     * Builds an asset and the private properties passed in the transient map.
+     */
+    @Setup
+    public final void setUp() {
+        asset = new Asset("asset1", "blue", 5, "Tom", 300);
+        assetJSON = asset.serialize();
+        privateProps = "{\"objectType\":\"asset_properties\",\"ID\":\"asset1\","
+                + "\"Salt\":\"a94a8fe5ccb19ba61c4c0873d391e987982fbbd3a94a8fe5ccb19ba61c4c0873\"}";
+    }
+
+    /**
+     * Serialization as in CreateAsset and for the chaincode events.
+     */
+    @Benchmark
+    public final byte[] serialize() {
+        return asset.serialize();
+    }
+
+    /**
+     * Serialization as in ReadAsset, including the private properties.
+     */
+    @Benchmark
+    public final String serializeWithPrivateProps() {
+        return asset.serialize(privateProps);
+    }
+
+    /**
+     * Deserialization through JSONObject.toMap(), as in every read.
+     */
+    @Benchmark
+    public final Asset deserialize() {
+        return Asset.deserialize(assetJSON);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+
+/**
+ * The Genson round trip FabCar does for every car it reads or writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CarBenchmark {
+
+    private final Genson genson = new Genson();
+
+    private Car car;
+
+    private byte[] carState;
+
+    /**
+     * Uses one of the cars created by InitLedger.
+     */
+    @Setup
+    public final void setUp() {
+        car = new Car("Toyota", "Prius", "blue", "Tomoko");
+        carState = genson.serialize(car).getBytes(UTF_8);
+    }
+
+    /**
+     * Serialization as in CreateCar and ChangeCarOwner.
+     */
+    @Benchmark
+    public final byte[] serialize() {
+        return genson.serialize(car).getBytes(UTF_8);
+    }
+
+    /**
+     * Deserialization as in QueryCar.
+     */
+    @Benchmark
+    public final Car deserialize() {
+        return genson.deserialize(new String(carState, UTF_8), Car.class);
+    }
+}
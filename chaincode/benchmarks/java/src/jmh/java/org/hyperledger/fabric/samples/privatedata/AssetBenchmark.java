@@ -0,0 +1,64 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The org.json serialization of the private data sample's assets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AssetBenchmark {
+
+    private Asset asset;
+
+    private byte[] assetJSON;
+
+    private AssetPrivateDetails details;
+
+    /**
+     * Builds an asset owned by a client identity, as CreateAsset stores it.
+     */
+    @Setup
+    public final void setUp() {
+        asset = new Asset("asset", "asset1", "blue", 5, "x509::CN=appUser1,OU=client,O=Hyperledger,ST=North Carolina,C=US::CN=ca.org1.example.com,O=org1.example.com,L=Durham,ST=North Carolina,C=US");
+        assetJSON = asset.serialize();
+        details = new AssetPrivateDetails("asset1", 300);
+    }
+
+    /**
+     * Serialization as in CreateAsset and TransferAsset.
+     */
+    @Benchmark
+    public final byte[] serialize() {
+        return asset.serialize();
+    }
+
+    /**
+     * Deserialization as in ReadAsset and the range queries.
+     */
+    @Benchmark
+    public final Asset deserialize() {
+        return Asset.deserialize(assetJSON);
+    }
+
+    /**
+     * Serialization of the appraised value written to the owner's collection.
+     */
+    @Benchmark
+    public final byte[] serializePrivateDetails() {
+        return details.serialize();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.sbe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+
+/**
+ * The Genson round trip AssetContract does in UpdateAsset and TransferAsset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AssetBenchmark {
+
+    private final Genson genson = new Genson();
+
+    private Asset asset;
+
+    private String assetJSON;
+
+    /**
+     * Builds an asset as CreateAsset stores it.
+     */
+    @Setup
+    public final void setUp() {
+        asset = new Asset("asset1", 100, "Tom", "Org1MSP");
+        assetJSON = genson.serialize(asset);
+    }
+
+    /**
+     * Serialization as in CreateAsset.
+     */
+    @Benchmark
+    public final String serialize() {
+        return genson.serialize(asset);
+    }
+
+    /**
+     * Deserialization as in UpdateAsset and TransferAsset.
+     */
+    @Benchmark
+    public final Asset deserialize() {
+        return genson.deserialize(assetJSON, Asset.class);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.example.CommercialPaperContract;
+import org.hyperledger.fabric.contract.ContractInterface;
+
+/**
+ * Commercial papers issued by MagnetoCorp and bought back and forth between
+ * DigiBank and BigFund.
+ *
+ * A buy goes to a paper no other buy is under way for, so that it names the paper's
+ * current owner. Only when every paper has a buy in flight, as with fewer papers than
+ * threads, does a buy name the last committed owner of a busy paper, and it can fail
+ * or conflict.
+ */
+public final class BuyWorkload implements Workload {
+
+    private static final String ISSUER = "MagnetoCorp";
+
+    private final int papers;
+
+    private final MemoryIdentity client = MemoryIdentity.create("Org1MSP", "isabella");
+
+    // owner of each paper as of the last committed buy
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+
+    // papers with a buy that has not been committed or abandoned yet
+    private final Set<String> buying = ConcurrentHashMap.newKeySet();
+
+    public BuyWorkload(final int papers) {
+        this.papers = papers;
+    }
+
+    @Override
+    public ContractInterface createContract() {
+        return new CommercialPaperContract();
+    }
+
+    @Override
+    public List<Invocation> setUp() {
+        List<Invocation> invocations = new ArrayList<>();
+        for (int i = 0; i < papers; i++) {
+            String paperNumber = paperNumber(i);
+            invocations.add(new Invocation(client, "issue", ISSUER, paperNumber, "2020-05-31", "2020-11-30", "5000000"));
+            owners.put(paperNumber, ISSUER);
+        }
+        return invocations;
+    }
+
+    @Override
+    public Invocation next(final Random random) {
+        String paperNumber = reserve(random);
+        String owner = owners.get(paperNumber);
+        String buyer = "DigiBank".equals(owner) ? "BigFund" : "DigiBank";
+        return new Invocation(client, "buy", ISSUER, paperNumber, owner, buyer, "4900000", "2020-05-31");
+    }
+
+    @Override
+    public void committed(final Invocation invocation) {
+        owners.put(invocation.getArgs().get(1), invocation.getArgs().get(3));
+        buying.remove(invocation.getArgs().get(1));
+    }
+
+    @Override
+    public void abandoned(final Invocation invocation) {
+        buying.remove(invocation.getArgs().get(1));
+    }
+
+    /**
+     * Picks a random paper no other buy is under way for and marks it as being bought,
+     * or any random paper if there is none.
+     */
+    private String reserve(final Random random) {
+        int first = random.nextInt(papers);
+        for (int i = 0; i < papers; i++) {
+            String paperNumber = paperNumber((first + i) % papers);
+            if (buying.add(paperNumber)) {
+                return paperNumber;
+            }
+        }
+        return paperNumber(first);
+    }
+
+    private static String paperNumber(final int i) {
+        return String.format("%05d", i);
+    }
+}
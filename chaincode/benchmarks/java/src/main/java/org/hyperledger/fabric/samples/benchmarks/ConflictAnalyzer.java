@@ -0,0 +1,190 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays a workload in simulated blocks and reports how many transactions MVCC
+ * validation would invalidate, and on which keys.
+ *
+ * Every transaction of a block is endorsed against the state committed by the
+ * previous blocks, then the block is validated in order as a peer does: a
+ * transaction is invalid if a key or range it read was written by an earlier
+ * transaction, in this block or since it was endorsed.
+ *
+ * <pre>
+ * ./gradlew analyzeConflicts --args="--workload buy --keys 100 --transactions 10000 --block-size 10"
+ * ./gradlew analyzeConflicts --args="--trace send.jsonl --contract basic --block-size 100"
+ * </pre>
+ *
+ * Generated workloads are those of {@link LoadDriver}. Trace files are described in
+ * {@link TraceWorkload}.
+ */
+public final class ConflictAnalyzer {
+
+    private final Workload workload;
+
+    private final int blockSize;
+
+    private final int transactions;
+
+    private final Random random;
+
+    private final Map<String, Integer> conflicts = new HashMap<>();
+
+    private final Map<String, Integer> writes = new HashMap<>();
+
+    private int blocks;
+
+    private int valid;
+
+    private int invalid;
+
+    private int failures;
+
+    private Exception firstFailure;
+
+    public ConflictAnalyzer(final Workload workload, final int blockSize, final int transactions, final long seed) {
+        this.workload = workload;
+        this.blockSize = blockSize;
+        this.transactions = transactions;
+        this.random = new Random(seed);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int blockSize = Integer.parseInt(options.getOrDefault("block-size", "10"));
+        int top = Integer.parseInt(options.getOrDefault("top", "10"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+
+        Workload workload;
+        int transactions;
+        if (options.containsKey("trace")) {
+            String contract = options.getOrDefault("contract", "basic");
+            workload = TraceWorkload.read(contract, Paths.get(options.get("trace")));
+            transactions = Integer.parseInt(options.getOrDefault("transactions", Integer.toString(Integer.MAX_VALUE)));
+            System.out.printf("trace %s on %s, blocks of %d%n", options.get("trace"), contract, blockSize);
+        } else {
+            String name = options.getOrDefault("workload", "send");
+            int keys = Integer.parseInt(options.getOrDefault("keys", "1000"));
+            workload = LoadDriver.createWorkload(name, keys);
+            transactions = Integer.parseInt(options.getOrDefault("transactions", "10000"));
+            System.out.printf("workload %s, %d keys, %d transactions, blocks of %d%n", name, keys, transactions,
+                    blockSize);
+        }
+
+        ConflictAnalyzer analyzer = new ConflictAnalyzer(workload, blockSize, transactions, seed);
+        analyzer.run();
+        analyzer.report(top);
+    }
+
+    /**
+     * Sets up a fresh ledger and replays the workload block by block.
+     */
+    public void run() throws Exception {
+        MemoryLedger ledger = new MemoryLedger();
+        ContractDispatcher dispatcher = new ContractDispatcher(workload.createContract());
+        for (Invocation invocation : workload.setUp()) {
+            if (!ledger.commit(dispatcher.endorse(ledger, invocation).getReadWriteSet())) {
+                throw new IllegalStateException("Set up transaction " + invocation + " was not valid");
+            }
+        }
+
+        int submitted = 0;
+        boolean exhausted = false;
+        while (!exhausted && submitted < transactions) {
+            List<Invocation> block = new ArrayList<>();
+            List<ReadWriteSet> rwsets = new ArrayList<>();
+            while (block.size() < blockSize && submitted < transactions) {
+                Invocation invocation = workload.next(random);
+                if (invocation == null) {
+                    exhausted = true;
+                    break;
+                }
+                submitted++;
+                try {
+                    rwsets.add(dispatcher.endorse(ledger, invocation).getReadWriteSet());
+                    block.add(invocation);
+                } catch (Exception e) {
+                    workload.abandoned(invocation);
+                    failures++;
+                    if (firstFailure == null) {
+                        firstFailure = e;
+                    }
+                }
+            }
+            if (!block.isEmpty()) {
+                validate(ledger, block, rwsets);
+            }
+        }
+    }
+
+    private void validate(final MemoryLedger ledger, final List<Invocation> block, final List<ReadWriteSet> rwsets) {
+        blocks++;
+        for (int i = 0; i < block.size(); i++) {
+            ReadWriteSet rwset = rwsets.get(i);
+            String conflict = ledger.findConflict(rwset);
+            if (conflict != null) {
+                invalid++;
+                conflicts.merge(conflict, 1, Integer::sum);
+                workload.abandoned(block.get(i));
+                continue;
+            }
+            ledger.commit(rwset);
+            valid++;
+            workload.committed(block.get(i));
+            for (Map.Entry<String, Map<String, byte[]>> collection : rwset.getWrites().entrySet()) {
+                for (String key : collection.getValue().keySet()) {
+                    writes.merge(MemoryLedger.qualify(collection.getKey(), key), 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the share of invalid transactions and the keys that caused most of them.
+     *
+     * @param top number of keys to list
+     */
+    public void report(final int top) {
+        int endorsed = valid + invalid;
+        System.out.printf("blocks           %d%n", blocks);
+        System.out.printf("valid            %d%n", valid);
+        System.out.printf("MVCC invalid     %d (%.1f%% of endorsed)%n", invalid,
+                endorsed == 0 ? 0.0 : 100.0 * invalid / endorsed);
+        System.out.printf("failed           %d%n", failures);
+        if (firstFailure != null) {
+            System.out.println("first failure    " + firstFailure);
+        }
+        if (conflicts.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<String, Integer>> hot = new ArrayList<>(conflicts.entrySet());
+        hot.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        System.out.printf("%nhot keys (%d of %d)%n", Math.min(top, hot.size()), hot.size());
+        System.out.printf("%10s %10s  %s%n", "invalid", "writes", "key");
+        for (Map.Entry<String, Integer> entry : hot.subList(0, Math.min(top, hot.size()))) {
+            System.out.printf("%10d %10d  %s%n", entry.getValue(), writes.getOrDefault(entry.getKey(), 0),
+                    printable(entry.getKey()));
+        }
+    }
+
+    // shows composite keys as :type:attr1:attr2: and open range bounds as empty
+    private static String printable(final String key) {
+        return key.replace(MemoryStub.UNSPECIFIED_START_KEY, "")
+                .replace(MemoryStub.MAX_UNICODE_RUNE, "")
+                .replace('\u0000', ':');
+    }
+}
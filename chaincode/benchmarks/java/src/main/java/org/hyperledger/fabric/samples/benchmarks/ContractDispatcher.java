@@ -0,0 +1,116 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Calls the transaction functions of a contract the way ContractRouter does on a peer:
+ * the function is looked up by name, its string arguments are converted to the
+ * parameter types, and it runs between beforeTransaction and afterTransaction on the
+ * context returned by createContext.
+ */
+public final class ContractDispatcher {
+
+    private final ContractInterface contract;
+
+    private final Map<String, Method> functions = new HashMap<>();
+
+    private final Genson genson = new Genson();
+
+    private final AtomicLong txCount = new AtomicLong();
+
+    public ContractDispatcher(final ContractInterface contract) {
+        this.contract = contract;
+        for (Method method : contract.getClass().getMethods()) {
+            Transaction transaction = method.getAnnotation(Transaction.class);
+            if (transaction != null) {
+                String name = transaction.name().isEmpty() ? method.getName() : transaction.name();
+                functions.put(name, method);
+            }
+        }
+    }
+
+    /**
+     * Simulates an invocation against the committed state of the ledger, without
+     * committing it.
+     *
+     * @return the stub holding the transaction's read/write set
+     * @throws Exception whatever the transaction function throws
+     */
+    public MemoryStub endorse(final MemoryLedger ledger, final Invocation invocation) throws Exception {
+        MemoryStub stub = new MemoryStub(ledger, "tx" + txCount.incrementAndGet(), invocation);
+        invoke(stub);
+        return stub;
+    }
+
+    /**
+     * Runs the transaction function named by the stub.
+     *
+     * @return the value returned by the transaction function
+     * @throws Exception whatever the transaction function throws
+     */
+    public Object invoke(final ChaincodeStub stub) throws Exception {
+        Context ctx = contract.createContext(stub);
+        String name = stub.getFunction();
+        Method method = functions.get(name.substring(name.indexOf(':') + 1));
+        if (method == null) {
+            contract.unknownTransaction(ctx);
+            return null;
+        }
+
+        List<String> params = stub.getParameters();
+        Class<?>[] types = method.getParameterTypes();
+        if (params.size() != types.length - 1) {
+            throw new IllegalArgumentException(String.format("%s expects %d arguments, got %d",
+                    method.getName(), types.length - 1, params.size()));
+        }
+        Object[] args = new Object[types.length];
+        args[0] = ctx;
+        for (int i = 1; i < types.length; i++) {
+            args[i] = convert(params.get(i - 1), types[i]);
+        }
+
+        contract.beforeTransaction(ctx);
+        Object result;
+        try {
+            result = method.invoke(contract, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        contract.afterTransaction(ctx, result);
+        return result;
+    }
+
+    private Object convert(final String value, final Class<?> type) {
+        if (type == String.class) {
+            return value;
+        } else if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(value);
+        } else if (type == long.class || type == Long.class) {
+            return Long.valueOf(value);
+        } else if (type == double.class || type == Double.class) {
+            return Double.valueOf(value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.valueOf(value);
+        }
+        return genson.deserialize(value, type);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A transaction function call as a client submits it: who calls, the function name,
+ * its string arguments and the transient data.
+ */
+public final class Invocation {
+
+    private final MemoryIdentity identity;
+
+    private final String function;
+
+    private final List<String> args;
+
+    private final Map<String, byte[]> transientData = new HashMap<>();
+
+    public Invocation(final MemoryIdentity identity, final String function, final String... args) {
+        this.identity = identity;
+        this.function = function;
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    /**
+     * Adds a transient data entry, as passed with setTransient on the client.
+     */
+    public Invocation withTransient(final String key, final String value) {
+        transientData.put(key, value.getBytes(UTF_8));
+        return this;
+    }
+
+    public MemoryIdentity getIdentity() {
+        return identity;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    public Map<String, byte[]> getTransientData() {
+        return Collections.unmodifiableMap(transientData);
+    }
+
+    @Override
+    public String toString() {
+        return function + args;
+    }
+}
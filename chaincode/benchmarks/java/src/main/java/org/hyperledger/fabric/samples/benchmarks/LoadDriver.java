@@ -0,0 +1,157 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a workload against its contract on an in-memory ledger from several threads and
+ * reports throughput, MVCC conflicts and read/write set sizes.
+ *
+ * Each thread endorses an invocation with {@link MemoryStub} and commits its
+ * read/write set straight away, so transactions endorsed concurrently on the same
+ * keys conflict as they would between blocks on a network.
+ *
+ * <pre>
+ * ./gradlew run --args="--workload send --threads 8 --transactions 100000 --keys 1000"
+ * </pre>
+ *
+ * Workloads are send (basic chaincode), buy (commercial paper) and transfer (private data).
+ */
+public final class LoadDriver {
+
+    private final Workload workload;
+
+    private final int threads;
+
+    private final int transactions;
+
+    private final LongAdder committed = new LongAdder();
+
+    private final LongAdder conflicts = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder reads = new LongAdder();
+
+    private final LongAdder writes = new LongAdder();
+
+    private final LongAdder writeBytes = new LongAdder();
+
+    private final AtomicReference<Exception> firstFailure = new AtomicReference<>();
+
+    public LoadDriver(final Workload workload, final int threads, final int transactions) {
+        this.workload = workload;
+        this.threads = threads;
+        this.transactions = transactions;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String name = options.getOrDefault("workload", "send");
+        int keys = Integer.parseInt(options.getOrDefault("keys", "1000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        int transactions = Integer.parseInt(options.getOrDefault("transactions", "100000"));
+
+        System.out.printf("workload %s, %d keys, %d threads, %d transactions%n", name, keys, threads, transactions);
+        new LoadDriver(createWorkload(name, keys), threads, transactions).run();
+    }
+
+    static Workload createWorkload(final String name, final int keys) {
+        switch (name) {
+            case "send":
+                return new SendWorkload(keys);
+            case "buy":
+                return new BuyWorkload(keys);
+            case "transfer":
+                return new TransferWorkload(keys);
+            default:
+                throw new IllegalArgumentException("Unknown workload " + name + ", expected send, buy or transfer");
+        }
+    }
+
+    /**
+     * Sets up a fresh ledger, runs the workload and prints the results.
+     */
+    public void run() throws Exception {
+        MemoryLedger ledger = new MemoryLedger();
+        ContractDispatcher dispatcher = new ContractDispatcher(workload.createContract());
+        for (Invocation invocation : workload.setUp()) {
+            if (!ledger.commit(dispatcher.endorse(ledger, invocation).getReadWriteSet())) {
+                throw new IllegalStateException("Set up transaction " + invocation + " was not valid");
+            }
+        }
+
+        AtomicInteger remaining = new AtomicInteger(transactions);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    Invocation invocation = workload.next(ThreadLocalRandom.current());
+                    if (invocation == null) {
+                        break;
+                    }
+                    submit(ledger, dispatcher, invocation);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        report(seconds);
+    }
+
+    private void submit(final MemoryLedger ledger, final ContractDispatcher dispatcher, final Invocation invocation) {
+        ReadWriteSet rwset;
+        try {
+            rwset = dispatcher.endorse(ledger, invocation).getReadWriteSet();
+        } catch (Exception e) {
+            failures.increment();
+            firstFailure.compareAndSet(null, e);
+            workload.abandoned(invocation);
+            return;
+        }
+        reads.add(rwset.getReadCount());
+        writes.add(rwset.getWriteCount());
+        writeBytes.add(rwset.getWriteBytes());
+        if (ledger.commit(rwset)) {
+            committed.increment();
+            workload.committed(invocation);
+        } else {
+            conflicts.increment();
+            workload.abandoned(invocation);
+        }
+    }
+
+    private void report(final double seconds) {
+        long endorsed = committed.sum() + conflicts.sum();
+        System.out.printf("committed        %d (%.0f tx/s)%n", committed.sum(), committed.sum() / seconds);
+        System.out.printf("MVCC conflicts   %d (%.1f%% of endorsed)%n", conflicts.sum(),
+                endorsed == 0 ? 0.0 : 100.0 * conflicts.sum() / endorsed);
+        System.out.printf("failed           %d%n", failures.sum());
+        if (endorsed > 0) {
+            System.out.printf("reads per tx     %.1f%n", (double) reads.sum() / endorsed);
+            System.out.printf("writes per tx    %.1f%n", (double) writes.sum() / endorsed);
+            System.out.printf("write set bytes  %.0f per tx%n", (double) writeBytes.sum() / endorsed);
+        }
+        if (firstFailure.get() != null) {
+            System.out.println("first failure    " + firstFailure.get());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.hyperledger.fabric.protos.msp.Identities.SerializedIdentity;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * A client identity with a freshly generated self-signed certificate, serialized the
+ * way a peer passes the transaction creator to chaincode, so that
+ * ClientIdentity works as it does on a real network.
+ */
+public final class MemoryIdentity {
+
+    private static final long VALIDITY_MILLIS = 365L * 24 * 60 * 60 * 1000;
+
+    private final String mspId;
+
+    private final byte[] serialized;
+
+    private MemoryIdentity(final String mspId, final byte[] serialized) {
+        this.mspId = mspId;
+        this.serialized = serialized;
+    }
+
+    /**
+     * Creates an identity of the given organization.
+     */
+    public static MemoryIdentity create(final String mspId, final String commonName) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+
+            X500Name subject = new X500Name("CN=" + commonName + ",O=" + mspId);
+            Date notBefore = new Date();
+            X509CertificateHolder certificate = new JcaX509v3CertificateBuilder(subject, BigInteger.ONE, notBefore,
+                    new Date(notBefore.getTime() + VALIDITY_MILLIS), subject, keyPair.getPublic())
+                    .build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate()));
+
+            String pem = "-----BEGIN CERTIFICATE-----\n"
+                    + Base64.getMimeEncoder(64, "\n".getBytes(UTF_8)).encodeToString(certificate.getEncoded())
+                    + "\n-----END CERTIFICATE-----\n";
+            byte[] serialized = SerializedIdentity.newBuilder()
+                    .setMspid(mspId)
+                    .setIdBytes(ByteString.copyFromUtf8(pem))
+                    .build()
+                    .toByteArray();
+            return new MemoryIdentity(mspId, serialized);
+        } catch (GeneralSecurityException | OperatorCreationException | IOException e) {
+            throw new IllegalStateException("Cannot create identity for " + mspId, e);
+        }
+    }
+
+    public String getMspId() {
+        return mspId;
+    }
+
+    /**
+     * The SerializedIdentity bytes returned by ChaincodeStub.getCreator.
+     */
+    public byte[] getSerialized() {
+        return serialized;
+    }
+}
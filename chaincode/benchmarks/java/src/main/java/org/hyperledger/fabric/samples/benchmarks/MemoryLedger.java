@@ -0,0 +1,178 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Committed world state and private data of an in-memory channel, with the version
+ * of every key. Transactions are simulated against it with {@link MemoryStub} and
+ * then committed, which applies their writes only if none of the keys and ranges
+ * they read has changed since, the same MVCC check a peer runs at validation.
+ *
+ * Reads may run concurrently with each other and with commits. Commits are serialized.
+ */
+public final class MemoryLedger {
+
+    /**
+     * Collection name under which world state is kept.
+     */
+    public static final String WORLD_STATE = "";
+
+    private final Map<String, ConcurrentSkipListMap<String, VersionedValue>> collections = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> validationParameters = new ConcurrentHashMap<>();
+
+    private long height;
+
+    /**
+     * Returns the committed value of a key, or null if it does not exist.
+     */
+    VersionedValue get(final String collection, final String key) {
+        return collection(collection).get(key);
+    }
+
+    /**
+     * Returns the committed keys from startKey inclusive to endKey exclusive. An empty
+     * endKey means the end of the collection.
+     */
+    NavigableMap<String, VersionedValue> range(final String collection, final String startKey, final String endKey) {
+        ConcurrentSkipListMap<String, VersionedValue> entries = collection(collection);
+        if (endKey.isEmpty()) {
+            return entries.tailMap(startKey, true);
+        }
+        if (startKey.compareTo(endKey) >= 0) {
+            return new ConcurrentSkipListMap<>();
+        }
+        return entries.subMap(startKey, true, endKey, false);
+    }
+
+    byte[] getValidationParameter(final String key) {
+        return validationParameters.get(key);
+    }
+
+    /**
+     * Number of transactions committed so far, which is also the version of the keys
+     * written by the last one.
+     */
+    public synchronized long getHeight() {
+        return height;
+    }
+
+    /**
+     * Validates a transaction against the current state and applies its writes if it is
+     * valid.
+     *
+     * @return false if the transaction has an MVCC read conflict or a phantom read
+     */
+    public synchronized boolean commit(final ReadWriteSet rwset) {
+        if (!isValid(rwset)) {
+            return false;
+        }
+        long version = ++height;
+        for (Map.Entry<String, Map<String, byte[]>> collection : rwset.getWrites().entrySet()) {
+            ConcurrentSkipListMap<String, VersionedValue> entries = collection(collection.getKey());
+            for (Map.Entry<String, byte[]> write : collection.getValue().entrySet()) {
+                if (write.getValue() == null) {
+                    entries.remove(write.getKey());
+                } else {
+                    entries.put(write.getKey(), new VersionedValue(write.getValue(), version));
+                }
+            }
+        }
+        validationParameters.putAll(rwset.getValidationParameters());
+        return true;
+    }
+
+    /**
+     * Tells whether every key and range the transaction read is still at the version it saw.
+     */
+    public synchronized boolean isValid(final ReadWriteSet rwset) {
+        return findConflict(rwset) == null;
+    }
+
+    /**
+     * Returns the first key or range read by the transaction that has changed since it
+     * was read, which is the one a peer reports when it invalidates the transaction.
+     *
+     * @return the key, qualified by its collection, or null if the transaction is valid
+     */
+    public synchronized String findConflict(final ReadWriteSet rwset) {
+        for (Map.Entry<String, Map<String, Long>> collection : rwset.getReads().entrySet()) {
+            for (Map.Entry<String, Long> read : collection.getValue().entrySet()) {
+                if (currentVersion(collection.getKey(), read.getKey()) != read.getValue()) {
+                    return qualify(collection.getKey(), read.getKey());
+                }
+            }
+        }
+        for (ReadWriteSet.RangeRead range : rwset.getRangeReads()) {
+            if (!isUnchanged(range)) {
+                return qualify(range.getCollection(), "[" + range.getStartKey() + ", " + range.getEndKey() + ")");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Names a key of a collection, or of world state if the collection is {@link #WORLD_STATE}.
+     */
+    static String qualify(final String collection, final String key) {
+        return collection.isEmpty() ? key : collection + "/" + key;
+    }
+
+    private long currentVersion(final String collection, final String key) {
+        VersionedValue value = get(collection, key);
+        return value == null ? 0 : value.getVersion();
+    }
+
+    private boolean isUnchanged(final ReadWriteSet.RangeRead range) {
+        Iterator<Map.Entry<String, VersionedValue>> current =
+                range(range.getCollection(), range.getStartKey(), range.getEndKey()).entrySet().iterator();
+        List<String> keys = range.getKeys();
+        List<Long> versions = range.getVersions();
+        for (int i = 0; i < keys.size(); i++) {
+            if (!current.hasNext()) {
+                return false;
+            }
+            Map.Entry<String, VersionedValue> entry = current.next();
+            if (!entry.getKey().equals(keys.get(i)) || entry.getValue().getVersion() != versions.get(i)) {
+                return false;
+            }
+        }
+        return !range.isExhausted() || !current.hasNext();
+    }
+
+    private ConcurrentSkipListMap<String, VersionedValue> collection(final String name) {
+        return collections.computeIfAbsent(name, n -> new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * A committed value and the height at which it was written.
+     */
+    static final class VersionedValue {
+
+        private final byte[] value;
+
+        private final long version;
+
+        VersionedValue(final byte[] value, final long version) {
+            this.value = value;
+            this.version = version;
+        }
+
+        byte[] getValue() {
+            return value;
+        }
+
+        long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEventPackage.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.ChaincodeShim.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.ProposalPackage.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * ChaincodeStub that simulates one transaction against a {@link MemoryLedger}. Reads
+ * see the committed state, as on a peer, and are recorded with their versions in a
+ * {@link ReadWriteSet} together with the writes, which are not applied until the
+ * read/write set is committed.
+ *
+ * Rich queries, history, chaincode-to-chaincode calls and the signed proposal need a
+ * real peer and throw UnsupportedOperationException.
+ */
+public final class MemoryStub implements ChaincodeStub {
+
+    private static final String CHANNEL = "mychannel";
+
+    // the shim replaces an empty range start with this, which keeps composite keys out of range queries
+    static final String UNSPECIFIED_START_KEY = "\u0001";
+
+    static final String MAX_UNICODE_RUNE = "\udbff\udfff";
+
+    private final MemoryLedger ledger;
+
+    private final String txId;
+
+    private final Invocation invocation;
+
+    private final Instant timestamp = Instant.now();
+
+    private final ReadWriteSet rwset = new ReadWriteSet();
+
+    private ChaincodeEvent event;
+
+    public MemoryStub(final MemoryLedger ledger, final String txId, final Invocation invocation) {
+        this.ledger = ledger;
+        this.txId = txId;
+        this.invocation = invocation;
+    }
+
+    /**
+     * The reads and writes made so far.
+     */
+    public ReadWriteSet getReadWriteSet() {
+        return rwset;
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        List<byte[]> args = new ArrayList<>();
+        for (String arg : getStringArgs()) {
+            args.add(arg.getBytes(UTF_8));
+        }
+        return args;
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        List<String> args = new ArrayList<>();
+        args.add(invocation.getFunction());
+        args.addAll(invocation.getArgs());
+        return args;
+    }
+
+    @Override
+    public String getFunction() {
+        return invocation.getFunction();
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return invocation.getArgs();
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return CHANNEL;
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        throw new UnsupportedOperationException("invokeChaincode");
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        return read(MemoryLedger.WORLD_STATE, key);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return ledger.getValidationParameter(key);
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        write(MemoryLedger.WORLD_STATE, key, value);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        rwset.recordValidationParameter(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        write(MemoryLedger.WORLD_STATE, key, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        return range(MemoryLedger.WORLD_STATE, startKey.isEmpty() ? UNSPECIFIED_START_KEY : startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey,
+            final String endKey, final int pageSize, final String bookmark) {
+        String start = startKey.isEmpty() ? UNSPECIFIED_START_KEY : startKey;
+        return page(MemoryLedger.WORLD_STATE, bookmark.isEmpty() ? start : bookmark, endKey, pageSize);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return getStateByPartialCompositeKey(toCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+            final String... attributes) {
+        return getStateByPartialCompositeKey(new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        String prefix = compositeKey.toString();
+        return range(MemoryLedger.WORLD_STATE, prefix, prefix + MAX_UNICODE_RUNE);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        String prefix = compositeKey.toString();
+        return page(MemoryLedger.WORLD_STATE, bookmark.isEmpty() ? prefix : bookmark, prefix + MAX_UNICODE_RUNE,
+                pageSize);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        throw new UnsupportedOperationException("Rich queries need CouchDB");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query,
+            final int pageSize, final String bookmark) {
+        throw new UnsupportedOperationException("Rich queries need CouchDB");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        throw new UnsupportedOperationException("getHistoryForKey");
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        return read(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        byte[] value = read(collection, key);
+        if (value.length == 0) {
+            return value;
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        return null;
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        write(collection, key, value);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        write(collection, key, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey,
+            final String endKey) {
+        return range(collection, startKey.isEmpty() ? UNSPECIFIED_START_KEY : startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String compositeKey) {
+        return getPrivateDataByPartialCompositeKey(collection, toCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final CompositeKey compositeKey) {
+        String prefix = compositeKey.toString();
+        return range(collection, prefix, prefix + MAX_UNICODE_RUNE);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String objectType, final String... attributes) {
+        return getPrivateDataByPartialCompositeKey(collection, new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        throw new UnsupportedOperationException("Rich queries need CouchDB");
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        event = ChaincodeEvent.newBuilder()
+                .setEventName(name)
+                .setPayload(ByteString.copyFrom(payload))
+                .setTxId(txId)
+                .build();
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        throw new UnsupportedOperationException("getSignedProposal");
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return invocation.getIdentity().getSerialized();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return invocation.getTransientData();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        throw new UnsupportedOperationException("getBinding");
+    }
+
+    /**
+     * The peer is taken to belong to the caller's organization.
+     */
+    @Override
+    public String getMspId() {
+        return invocation.getIdentity().getMspId();
+    }
+
+    private byte[] read(final String collection, final String key) {
+        MemoryLedger.VersionedValue value = ledger.get(collection, key);
+        rwset.recordRead(collection, key, value == null ? 0 : value.getVersion());
+        return value == null ? new byte[0] : value.getValue();
+    }
+
+    private void write(final String collection, final String key, final byte[] value) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key cannot be null or empty string");
+        }
+        rwset.recordWrite(collection, key, value);
+    }
+
+    private static CompositeKey toCompositeKey(final String compositeKey) {
+        if (compositeKey.startsWith(CompositeKey.NAMESPACE)) {
+            return CompositeKey.parseCompositeKey(compositeKey);
+        }
+        return new CompositeKey(compositeKey);
+    }
+
+    private RangeIterator range(final String collection, final String startKey, final String endKey) {
+        ReadWriteSet.RangeRead read = rwset.recordRange(collection, startKey, endKey);
+        return new RangeIterator(ledger.range(collection, startKey, endKey).entrySet().iterator(), read,
+                Integer.MAX_VALUE);
+    }
+
+    private RangeIterator page(final String collection, final String startKey, final String endKey,
+            final int pageSize) {
+        ReadWriteSet.RangeRead read = rwset.recordRange(collection, startKey, endKey);
+        return new RangeIterator(ledger.range(collection, startKey, endKey).entrySet().iterator(), read, pageSize);
+    }
+
+    /**
+     * Iterates over a range of committed keys, recording each one in the read set as it
+     * is returned, and the end of the range if the iteration reaches it.
+     */
+    private static final class RangeIterator
+            implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final List<KeyValue> results = new ArrayList<>();
+
+        private final String bookmark;
+
+        private final ReadWriteSet.RangeRead read;
+
+        private final boolean exhausted;
+
+        RangeIterator(final Iterator<Map.Entry<String, MemoryLedger.VersionedValue>> source,
+                final ReadWriteSet.RangeRead read, final int limit) {
+            this.read = read;
+            Map.Entry<String, MemoryLedger.VersionedValue> next = null;
+            while (source.hasNext()) {
+                next = source.next();
+                if (results.size() == limit) {
+                    break;
+                }
+                results.add(new MemoryKeyValue(next.getKey(), next.getValue()));
+                next = null;
+            }
+            this.bookmark = next == null ? "" : next.getKey();
+            this.exhausted = next == null;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            Iterator<KeyValue> it = results.iterator();
+            return new Iterator<KeyValue>() {
+                @Override
+                public boolean hasNext() {
+                    boolean hasNext = it.hasNext();
+                    if (!hasNext && exhausted) {
+                        read.markExhausted();
+                    }
+                    return hasNext;
+                }
+
+                @Override
+                public KeyValue next() {
+                    MemoryKeyValue kv = (MemoryKeyValue) it.next();
+                    read.recordKey(kv.getKey(), kv.version);
+                    return kv;
+                }
+            };
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(results.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class MemoryKeyValue implements KeyValue {
+
+        private final String key;
+
+        private final byte[] value;
+
+        private final long version;
+
+        MemoryKeyValue(final String key, final MemoryLedger.VersionedValue value) {
+            this.key = key;
+            this.value = value.getValue();
+            this.version = value.getVersion();
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, UTF_8);
+        }
+    }
+}
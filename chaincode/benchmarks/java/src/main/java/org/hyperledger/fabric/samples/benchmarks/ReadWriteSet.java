@@ -0,0 +1,166 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reads and writes of one simulated transaction, keyed by collection. World
+ * state uses the collection name {@link MemoryLedger#WORLD_STATE}.
+ *
+ * As on a peer, a read records the committed version of the key, or 0 if the key
+ * did not exist, and a write records the new value, or null for a delete.
+ */
+public final class ReadWriteSet {
+
+    private final Map<String, Map<String, Long>> reads = new LinkedHashMap<>();
+
+    private final List<RangeRead> rangeReads = new ArrayList<>();
+
+    private final Map<String, Map<String, byte[]>> writes = new LinkedHashMap<>();
+
+    private final Map<String, byte[]> validationParameters = new LinkedHashMap<>();
+
+    void recordRead(final String collection, final String key, final long version) {
+        reads.computeIfAbsent(collection, c -> new LinkedHashMap<>()).putIfAbsent(key, version);
+    }
+
+    void recordWrite(final String collection, final String key, final byte[] value) {
+        writes.computeIfAbsent(collection, c -> new LinkedHashMap<>()).put(key, value);
+    }
+
+    void recordValidationParameter(final String key, final byte[] value) {
+        validationParameters.put(key, value);
+    }
+
+    RangeRead recordRange(final String collection, final String startKey, final String endKey) {
+        RangeRead range = new RangeRead(collection, startKey, endKey);
+        rangeReads.add(range);
+        return range;
+    }
+
+    Map<String, Map<String, Long>> getReads() {
+        return reads;
+    }
+
+    List<RangeRead> getRangeReads() {
+        return rangeReads;
+    }
+
+    Map<String, Map<String, byte[]>> getWrites() {
+        return writes;
+    }
+
+    Map<String, byte[]> getValidationParameters() {
+        return validationParameters;
+    }
+
+    /**
+     * Number of keys read, including the keys returned by range queries.
+     */
+    public int getReadCount() {
+        int count = 0;
+        for (Map<String, Long> collection : reads.values()) {
+            count += collection.size();
+        }
+        for (RangeRead range : rangeReads) {
+            count += range.getKeys().size();
+        }
+        return count;
+    }
+
+    /**
+     * Number of keys written or deleted.
+     */
+    public int getWriteCount() {
+        int count = 0;
+        for (Map<String, byte[]> collection : writes.values()) {
+            count += collection.size();
+        }
+        return count;
+    }
+
+    /**
+     * Size of the written keys and values, which is what the transaction adds to a block.
+     */
+    public long getWriteBytes() {
+        long bytes = 0;
+        for (Map<String, byte[]> collection : writes.values()) {
+            for (Map.Entry<String, byte[]> write : collection.entrySet()) {
+                bytes += write.getKey().length();
+                if (write.getValue() != null) {
+                    bytes += write.getValue().length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * A range or partial composite key query, with the keys and versions the
+     * transaction actually iterated over.
+     */
+    static final class RangeRead {
+
+        private final String collection;
+
+        private final String startKey;
+
+        private final String endKey;
+
+        private final List<String> keys = new ArrayList<>();
+
+        private final List<Long> versions = new ArrayList<>();
+
+        private boolean exhausted;
+
+        private RangeRead(final String collection, final String startKey, final String endKey) {
+            this.collection = collection;
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+
+        void recordKey(final String key, final long version) {
+            keys.add(key);
+            versions.add(version);
+        }
+
+        void markExhausted() {
+            exhausted = true;
+        }
+
+        String getCollection() {
+            return collection;
+        }
+
+        String getStartKey() {
+            return startKey;
+        }
+
+        String getEndKey() {
+            return endKey;
+        }
+
+        List<String> getKeys() {
+            return Collections.unmodifiableList(keys);
+        }
+
+        List<Long> getVersions() {
+            return Collections.unmodifiableList(versions);
+        }
+
+        /**
+         * Tells whether the transaction read to the end of the range, in which case a key
+         * added to the range afterwards is a phantom read.
+         */
+        boolean isExhausted() {
+            return exhausted;
+        }
+    }
+}
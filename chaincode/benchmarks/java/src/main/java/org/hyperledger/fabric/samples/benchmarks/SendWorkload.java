@@ -0,0 +1,59 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.samples.assettransfer.AssetTransfer;
+
+/**
+ * Transfers of one unit between random accounts of the basic chaincode.
+ */
+public final class SendWorkload implements Workload {
+
+    private static final String INITIAL_BALANCE = "1000000000000";
+
+    private final int accounts;
+
+    private final MemoryIdentity client = MemoryIdentity.create("Org1MSP", "appUser");
+
+    public SendWorkload(final int accounts) {
+        if (accounts < 2) {
+            throw new IllegalArgumentException("Send needs at least two accounts");
+        }
+        this.accounts = accounts;
+    }
+
+    @Override
+    public ContractInterface createContract() {
+        return new AssetTransfer();
+    }
+
+    @Override
+    public List<Invocation> setUp() {
+        List<Invocation> invocations = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            invocations.add(new Invocation(client, "CreateAccount", accountID(i), INITIAL_BALANCE, "key" + i));
+        }
+        return invocations;
+    }
+
+    @Override
+    public Invocation next(final Random random) {
+        int from = random.nextInt(accounts);
+        int to = random.nextInt(accounts - 1);
+        if (to >= from) {
+            to++;
+        }
+        return new Invocation(client, "Send", accountID(from), accountID(to), "1");
+    }
+
+    private static String accountID(final int i) {
+        return "account" + i;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.example.CommercialPaperContract;
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.samples.fabcar.FabCar;
+import org.hyperledger.fabric.samples.sbe.AssetContract;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Invocations read from a trace file, replayed in order against one of the sample
+ * contracts.
+ *
+ * The trace has one JSON object per line:
+ *
+ * <pre>
+ * {"setup": true, "function": "CreateAccount", "args": ["account1", "1000", "key1"]}
+ * {"mspId": "Org2MSP", "function": "TransferAsset", "transient": {"asset_owner": {"assetID": "asset1", "buyerMSP": "Org2MSP"}}}
+ * </pre>
+ *
+ * args and transient are optional, mspId defaults to Org1MSP, and lines marked setup
+ * are committed before the replay starts. Blank lines and lines starting with # are
+ * ignored.
+ */
+public final class TraceWorkload implements Workload {
+
+    private static final Map<String, Supplier<ContractInterface>> CONTRACTS = new HashMap<>();
+
+    static {
+        CONTRACTS.put("basic", org.hyperledger.fabric.samples.assettransfer.AssetTransfer::new);
+        CONTRACTS.put("sbe", AssetContract::new);
+        CONTRACTS.put("private-data", org.hyperledger.fabric.samples.privatedata.AssetTransfer::new);
+        CONTRACTS.put("events", org.hyperledger.fabric.samples.events.AssetTransfer::new);
+        CONTRACTS.put("fabcar", FabCar::new);
+        CONTRACTS.put("commercial-paper", CommercialPaperContract::new);
+    }
+
+    private final Supplier<ContractInterface> contract;
+
+    private final List<Invocation> setUp = new ArrayList<>();
+
+    private final Iterator<Invocation> invocations;
+
+    private final Map<String, MemoryIdentity> identities = new HashMap<>();
+
+    private TraceWorkload(final Supplier<ContractInterface> contract, final List<String> lines) {
+        this.contract = contract;
+        List<Invocation> replay = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            JSONObject json = new JSONObject(trimmed);
+            Invocation invocation = parse(json);
+            if (json.optBoolean("setup")) {
+                setUp.add(invocation);
+            } else {
+                replay.add(invocation);
+            }
+        }
+        this.invocations = replay.iterator();
+    }
+
+    /**
+     * Reads a trace to replay against a contract.
+     *
+     * @param contractName basic, sbe, private-data, events, fabcar or commercial-paper
+     */
+    public static TraceWorkload read(final String contractName, final Path trace) throws IOException {
+        Supplier<ContractInterface> contract = CONTRACTS.get(contractName);
+        if (contract == null) {
+            throw new IllegalArgumentException("Unknown contract " + contractName + ", expected one of "
+                    + CONTRACTS.keySet());
+        }
+        return new TraceWorkload(contract, Files.readAllLines(trace, UTF_8));
+    }
+
+    private Invocation parse(final JSONObject json) {
+        String mspId = json.optString("mspId", "Org1MSP");
+        MemoryIdentity identity = identities.computeIfAbsent(mspId, m -> MemoryIdentity.create(m, "client"));
+
+        JSONArray jsonArgs = json.optJSONArray("args");
+        String[] args = new String[jsonArgs == null ? 0 : jsonArgs.length()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = jsonArgs.get(i).toString();
+        }
+        Invocation invocation = new Invocation(identity, json.getString("function"), args);
+
+        JSONObject transientData = json.optJSONObject("transient");
+        if (transientData != null) {
+            for (String key : transientData.keySet()) {
+                invocation.withTransient(key, transientData.get(key).toString());
+            }
+        }
+        return invocation;
+    }
+
+    @Override
+    public ContractInterface createContract() {
+        return contract.get();
+    }
+
+    @Override
+    public List<Invocation> setUp() {
+        return setUp;
+    }
+
+    @Override
+    public synchronized Invocation next(final Random random) {
+        return invocations.hasNext() ? invocations.next() : null;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.samples.privatedata.AssetTransfer;
+
+/**
+ * Private data assets created by Org1, agreed to by Org2, then each transferred once
+ * to Org2. The workload ends when every asset has been transferred.
+ */
+public final class TransferWorkload implements Workload {
+
+    private static final int APPRAISED_VALUE = 300;
+
+    private final int assets;
+
+    private final MemoryIdentity owner = MemoryIdentity.create("Org1MSP", "owner");
+
+    private final MemoryIdentity buyer = MemoryIdentity.create("Org2MSP", "buyer");
+
+    private final AtomicInteger transferred = new AtomicInteger();
+
+    public TransferWorkload(final int assets) {
+        this.assets = assets;
+    }
+
+    @Override
+    public ContractInterface createContract() {
+        return new AssetTransfer();
+    }
+
+    @Override
+    public List<Invocation> setUp() {
+        List<Invocation> invocations = new ArrayList<>();
+        for (int i = 0; i < assets; i++) {
+            String assetID = assetID(i);
+            invocations.add(new Invocation(owner, "CreateAsset").withTransient("asset_properties",
+                    String.format("{\"objectType\":\"asset\",\"assetID\":\"%s\",\"color\":\"blue\",\"size\":5,"
+                            + "\"appraisedValue\":%d}", assetID, APPRAISED_VALUE)));
+            invocations.add(new Invocation(buyer, "AgreeToTransfer").withTransient("asset_value",
+                    String.format("{\"assetID\":\"%s\",\"appraisedValue\":%d}", assetID, APPRAISED_VALUE)));
+        }
+        return invocations;
+    }
+
+    @Override
+    public Invocation next(final Random random) {
+        int i = transferred.getAndIncrement();
+        if (i >= assets) {
+            return null;
+        }
+        return new Invocation(owner, "TransferAsset").withTransient("asset_owner",
+                String.format("{\"assetID\":\"%s\",\"buyerMSP\":\"%s\"}", assetID(i), buyer.getMspId()));
+    }
+
+    private static String assetID(final int i) {
+        return "asset" + i;
+    }
+}
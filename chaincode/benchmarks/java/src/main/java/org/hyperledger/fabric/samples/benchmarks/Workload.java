@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import org.hyperledger.fabric.contract.ContractInterface;
+
+/**
+ * A contract and a stream of invocations to run against it.
+ */
+public interface Workload {
+
+    /**
+     * Creates the contract under test.
+     */
+    ContractInterface createContract();
+
+    /**
+     * Invocations that populate the ledger before the measurement starts. They are
+     * committed one at a time and must all succeed.
+     */
+    List<Invocation> setUp();
+
+    /**
+     * Returns the next invocation to measure, or null once the workload is exhausted.
+     * Called concurrently from all driver threads.
+     */
+    Invocation next(Random random);
+
+    /**
+     * Called after an invocation returned by {@link #next(Random)} was committed, for
+     * workloads whose next invocations depend on the ledger state.
+     */
+    default void committed(final Invocation invocation) {
+    }
+
+    /**
+     * Called instead of {@link #committed(Invocation)} when an invocation returned by
+     * {@link #next(Random)} failed or lost an MVCC conflict.
+     */
+    default void abandoned(final Invocation invocation) {
+    }
+}
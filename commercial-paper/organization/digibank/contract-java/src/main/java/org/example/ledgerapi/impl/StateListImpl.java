@@ -1,6 +1,8 @@
 package org.example.ledgerapi.impl;
 
 import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.example.ledgerapi.State;
 import org.example.ledgerapi.StateDeserializer;
@@ -21,6 +23,8 @@ SPDX-License-Identifier: Apache-2.0
  */
 public class StateListImpl implements StateList {
 
+    private final static Logger LOG = Logger.getLogger(StateListImpl.class.getName());
+
     private Context ctx;
     private String name;
     private Object supportedClasses;
@@ -45,20 +49,16 @@ public class StateListImpl implements StateList {
      */
     @Override
     public StateList addState(State state) {
-        System.out.println("Adding state " + this.name);
         ChaincodeStub stub = this.ctx.getStub();
-        System.out.println("Stub=" + stub);
         String[] splitKey = state.getSplitKey();
-        System.out.println("Split key " + Arrays.asList(splitKey));
 
         CompositeKey ledgerKey = stub.createCompositeKey(this.name, splitKey);
-        System.out.println("ledgerkey is ");
-        System.out.println(ledgerKey);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Adding state " + this.name + " " + Arrays.asList(splitKey));
+        }
 
         byte[] data = State.serialize(state);
-        System.out.println("ctx" + this.ctx);
-        System.out.println("stub" + this.ctx.getStub());
-        this.ctx.getStub().putState(ledgerKey.toString(), data);
+        stub.putState(ledgerKey.toString(), data);
 
         return this;
     }
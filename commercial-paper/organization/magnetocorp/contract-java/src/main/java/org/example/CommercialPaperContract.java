@@ -3,6 +3,7 @@ SPDX-License-Identifier: Apache-2.0
 */
 package org.example;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.example.ledgerapi.State;
@@ -70,8 +71,6 @@ public class CommercialPaperContract implements ContractInterface {
     public CommercialPaper issue(CommercialPaperContext ctx, String issuer, String paperNumber, String issueDateTime,
             String maturityDateTime, int faceValue) {
 
-        System.out.println(ctx);
-
         // create an instance of the paper
         CommercialPaper paper = CommercialPaper.createInstance(issuer, paperNumber, issueDateTime, maturityDateTime,
                 faceValue,issuer,"");
@@ -82,7 +81,9 @@ public class CommercialPaperContract implements ContractInterface {
         // Newly issued paper is owned by the issuer
         paper.setOwner(issuer);
 
-        System.out.println(paper);
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Issuing " + paper);
+        }
         // Add the paper to the list of all similar commercial papers in the ledger
         // world state
         ctx.paperList.addPaper(paper);